@@ -0,0 +1,144 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.entity.Role;
+import com.example.demo.entity.User;
+import com.example.demo.repository.RoleRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.security.AuthMetrics;
+import com.example.demo.security.CustomUserDetailsService;
+import com.example.demo.security.JwtAuthenticationFilter;
+import com.example.demo.security.RoleRegistry;
+import com.example.demo.service.PasswordHashingService;
+import com.example.demo.service.TokenRevocationService;
+import com.example.demo.util.JwtKey;
+import com.example.demo.util.JwtKeyManager;
+import com.example.demo.util.JwtKeyRing;
+import com.example.demo.util.JwtUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Dựng các bean cần cho benchmark mà không khởi động Spring context
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    static JwtUtil jwtUtil() {
+        return jwtUtil(jwtKeyManager(""));
+    }
+
+    // Key manager không cấu hình nguồn khóa (khóa HS256 ngẫu nhiên), hoặc HMAC từ chuỗi "kid:base64"
+    static JwtKeyManager jwtKeyManager(String hmacKeys) {
+        JwtKeyManager keyManager = new JwtKeyManager();
+        ReflectionTestUtils.setField(keyManager, "keystorePath", "");
+        ReflectionTestUtils.setField(keyManager, "keystorePassword", "");
+        ReflectionTestUtils.setField(keyManager, "hmacKeys", hmacKeys);
+        ReflectionTestUtils.setField(keyManager, "activeKid", "");
+        ReflectionTestUtils.setField(keyManager, "activationDelayMs", 0L);
+        keyManager.init();
+        return keyManager;
+    }
+
+    // Key manager với key ring dựng sẵn (vd. khóa EC sinh trong bộ nhớ, không cần keystore)
+    static JwtKeyManager jwtKeyManager(JwtKey... keys) {
+        JwtKeyManager keyManager = new JwtKeyManager();
+        ReflectionTestUtils.setField(keyManager, "ring", JwtKeyRing.of(List.of(keys), null, Duration.ZERO, Instant.now()));
+        return keyManager;
+    }
+
+    static JwtUtil jwtUtil(JwtKeyManager keyManager) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "keyManager", keyManager);
+        ReflectionTestUtils.setField(jwtUtil, "accessTokenExpiration", 900000L);
+        ReflectionTestUtils.setField(jwtUtil, "verifiedCacheSize", 10000L);
+        ReflectionTestUtils.invokeMethod(jwtUtil, "initCache");
+        return jwtUtil;
+    }
+
+    static PasswordHashingService passwordHashingService(int strength, int queueCapacity) {
+        PasswordHashingService service = new PasswordHashingService();
+        ReflectionTestUtils.setField(service, "strength", strength);
+        ReflectionTestUtils.setField(service, "threads", 0);
+        ReflectionTestUtils.setField(service, "queueCapacity", queueCapacity);
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.invokeMethod(service, "init");
+        return service;
+    }
+
+    // RoleRegistry nạp từ một RoleRepository giả chỉ trả lời các hàm registry dùng
+    static RoleRegistry roleRegistry() {
+        Map<String, Role> roles = new ConcurrentHashMap<>();
+        RoleRepository repository = (RoleRepository) Proxy.newProxyInstance(RoleRepository.class.getClassLoader(),
+                new Class<?>[]{RoleRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findByName" -> Optional.ofNullable(roles.get((String) args[0]));
+                    case "save" -> {
+                        Role role = (Role) args[0];
+                        roles.put(role.getName(), role);
+                        yield role;
+                    }
+                    case "findAll" -> List.copyOf(roles.values());
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        RoleRegistry registry = new RoleRegistry();
+        ReflectionTestUtils.setField(registry, "roleRepository", repository);
+        registry.refresh();
+        return registry;
+    }
+
+    // Filter với CustomUserDetailsService trên UserRepository giả: trả user từ bộ nhớ thay vì truy vấn DB
+    static JwtAuthenticationFilter jwtAuthenticationFilter(JwtUtil jwtUtil, RoleRegistry roleRegistry,
+                                                           String authMode, Map<String, User> users) {
+        UserRepository repository = (UserRepository) Proxy.newProxyInstance(UserRepository.class.getClassLoader(),
+                new Class<?>[]{UserRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findByNaturalEmail", "findByEmailFromDatabase" -> Optional.ofNullable(users.get((String) args[0]));
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        CustomUserDetailsService userDetailsService = new CustomUserDetailsService();
+        ReflectionTestUtils.setField(userDetailsService, "userRepository", repository);
+        ReflectionTestUtils.setField(userDetailsService, "roleRegistry", roleRegistry);
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(filter, "roleRegistry", roleRegistry);
+        ReflectionTestUtils.setField(filter, "userDetailsService", userDetailsService);
+        ReflectionTestUtils.setField(filter, "authMode", authMode);
+        ReflectionTestUtils.setField(filter, "authMetrics", authMetrics());
+        // Map mốc thu hồi rỗng: chỉ đo chi phí tra map
+        ReflectionTestUtils.setField(filter, "tokenRevocationService", new TokenRevocationService());
+        return filter;
+    }
+
+    static AuthMetrics authMetrics() {
+        AuthMetrics authMetrics = new AuthMetrics();
+        ReflectionTestUtils.setField(authMetrics, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.invokeMethod(authMetrics, "init");
+        return authMetrics;
+    }
+
+    static User user(String email) {
+        Role role = new Role();
+        role.setId(UUID.randomUUID());
+        role.setName("customer");
+        return user(email, role);
+    }
+
+    static User user(String email, Role role) {
+        User user = new User();
+        user.setId(UUID.randomUUID());
+        user.setEmail(email);
+        // Cột password NOT NULL; giá trị không cần là hash hợp lệ vì benchmark không kiểm tra mật khẩu
+        user.setPassword("$2a$10$benchmark");
+        user.setFull_name("Nguyễn Văn An");
+        user.setPhone("0912345678");
+        user.setRole(role);
+        return user;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.entity.User;
+import com.example.demo.security.JwtAuthenticationFilter;
+import com.example.demo.security.RoleRegistry;
+import com.example.demo.util.JwtUtil;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Toàn bộ đường đi của một request có Bearer token qua JwtAuthenticationFilter (verify, dựng principal, set context)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class JwtAuthenticationFilterBenchmark {
+
+    @Param({JwtAuthenticationFilter.MODE_STATELESS, JwtAuthenticationFilter.MODE_RELOAD})
+    public String authMode;
+
+    private JwtAuthenticationFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private FilterChain chain;
+    private Authentication authenticated;
+
+    @Setup
+    public void setup() throws ServletException, IOException {
+        JwtUtil jwtUtil = BenchmarkFixtures.jwtUtil();
+        RoleRegistry roleRegistry = BenchmarkFixtures.roleRegistry();
+        User user = BenchmarkFixtures.user("nguyen.van.an@example.com", roleRegistry.findByName("admin"));
+        Map<String, User> users = new HashMap<>();
+        users.put(user.getEmail(), user);
+        filter = BenchmarkFixtures.jwtAuthenticationFilter(jwtUtil, roleRegistry, authMode, users);
+
+        request = new MockHttpServletRequest("GET", "/api/admin/users/get-all");
+        request.addHeader("Authorization", "Bearer " + jwtUtil.generateAccessToken(user));
+        response = new MockHttpServletResponse();
+        // Chain cuối chỉ ghi nhận Authentication để benchmark trả về, tránh bị JIT loại bỏ
+        chain = (req, res) -> authenticated = SecurityContextHolder.getContext().getAuthentication();
+
+        // Đảm bảo benchmark đo đường xác thực thành công chứ không phải đường token bị từ chối
+        if (doFilter() == null) {
+            throw new IllegalStateException("Token không được xác thực ở chế độ " + authMode);
+        }
+        authenticated = null;
+    }
+
+    @Benchmark
+    public Authentication doFilter() throws ServletException, IOException {
+        try {
+            // OncePerRequestFilter đánh dấu request đã lọc; xóa để lần gọi sau chạy lại doFilterInternal
+            request.removeAttribute(filter.getClass().getName() + ".FILTERED");
+            filter.doFilter(request, response, chain);
+            return authenticated;
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.entity.User;
+import com.example.demo.util.JwtKey;
+import com.example.demo.util.JwtKeyRing;
+import com.example.demo.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.Key;
+import java.security.KeyPair;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Chi phí ký và verify (không qua cache token đã verify) của HS256 so với ES256.
+// ES256 cho phép node biên chỉ giữ public key nhưng verify chậm hơn nhiều so với HMAC.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class JwtSignatureAlgorithmBenchmark {
+
+    @Param({"HS256", "ES256"})
+    public String algorithm;
+
+    private JwtUtil jwtUtil;
+    private JwtParser parser;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setup() {
+        JwtKey key;
+        if ("ES256".equals(algorithm)) {
+            KeyPair keyPair = Jwts.SIG.ES256.keyPair().build();
+            key = JwtKey.asymmetric("es-1", keyPair.getPrivate(), keyPair.getPublic(), Instant.EPOCH);
+        } else {
+            key = JwtKey.hmac("hs-1", Jwts.SIG.HS256.key().build(), Instant.EPOCH);
+        }
+        jwtUtil = BenchmarkFixtures.jwtUtil(BenchmarkFixtures.jwtKeyManager(key));
+        JwtKeyRing ring = JwtKeyRing.of(List.of(key), null, Duration.ZERO, Instant.now());
+        // Cùng cách chọn khóa theo kid như JwtUtil, nhưng không có cache để đo đúng phần verify chữ ký
+        parser = Jwts.parser().keyLocator(new LocatorAdapter<Key>() {
+            @Override
+            protected Key locate(JwsHeader header) {
+                return ring.get(header.getKeyId()).getVerificationKey();
+            }
+        }).build();
+        user = BenchmarkFixtures.user("do.thi.kim.lien@example.com");
+        token = jwtUtil.generateAccessToken(user);
+    }
+
+    @Benchmark
+    public String sign() {
+        return jwtUtil.generateAccessToken(user);
+    }
+
+    @Benchmark
+    public Claims verify() {
+        return parser.parseSignedClaims(token).getPayload();
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.entity.User;
+import com.example.demo.util.JwtUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Phát hành access token (login/refresh) và validateToken trên token đã phát hành
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class JwtTokenBenchmark {
+
+    private JwtUtil jwtUtil;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setup() {
+        jwtUtil = BenchmarkFixtures.jwtUtil();
+        user = BenchmarkFixtures.user("tran.thi.bich.ngoc@example.com");
+        token = jwtUtil.generateAccessToken(user);
+    }
+
+    @Benchmark
+    public String generateAccessToken() {
+        return jwtUtil.generateAccessToken(user);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtUtil.validateToken(token, user.getEmail());
+    }
+}
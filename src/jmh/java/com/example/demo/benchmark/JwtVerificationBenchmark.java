@@ -0,0 +1,83 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.entity.User;
+import com.example.demo.util.JwtUtil;
+import com.example.demo.util.VerifiedToken;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// So sánh đường verify cũ (dựng parser mới, parse 3 lần/request) với verify-once có cache, dưới tải đồng thời
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+public class JwtVerificationBenchmark {
+
+    // Số token khác nhau mà các client gửi lên
+    @Param({"1", "1000"})
+    public int distinctTokens;
+
+    private JwtUtil jwtUtil;
+    private String[] tokens;
+
+    private SecretKey legacyKey;
+    private JwtParser reusableParser;
+    private String[] legacyTokens;
+
+    @Setup
+    public void setup() {
+        jwtUtil = BenchmarkFixtures.jwtUtil();
+        legacyKey = Keys.hmacShaKeyFor(UUID.randomUUID().toString().getBytes());
+        reusableParser = Jwts.parser().verifyWith(legacyKey).build();
+
+        tokens = new String[distinctTokens];
+        legacyTokens = new String[distinctTokens];
+        for (int i = 0; i < distinctTokens; i++) {
+            User user = BenchmarkFixtures.user("user" + i + "@example.com");
+            tokens[i] = jwtUtil.generateAccessToken(user);
+            legacyTokens[i] = Jwts.builder()
+                    .subject(user.getEmail())
+                    .issuedAt(new Date())
+                    .expiration(new Date(System.currentTimeMillis() + 900000))
+                    .signWith(legacyKey)
+                    .compact();
+        }
+    }
+
+    // Đường cũ của filter: extractEmail + validateToken (extractEmail + isTokenExpired), mỗi lần dựng parser mới
+    @Benchmark
+    public boolean legacyParseThreeTimes() {
+        String token = legacyTokens[ThreadLocalRandom.current().nextInt(distinctTokens)];
+        String email = legacyParse(token).getSubject();
+        String again = legacyParse(token).getSubject();
+        return email.equals(again) && !legacyParse(token).getExpiration().before(new Date());
+    }
+
+    // Parse một lần với parser dùng lại, không cache
+    @Benchmark
+    public Claims reusableParserOnce() {
+        String token = legacyTokens[ThreadLocalRandom.current().nextInt(distinctTokens)];
+        return reusableParser.parseSignedClaims(token).getPayload();
+    }
+
+    // Đường mới: JwtUtil.verify với cache token đã verify
+    @Benchmark
+    public VerifiedToken verifyOnceCached() {
+        return jwtUtil.verify(tokens[ThreadLocalRandom.current().nextInt(distinctTokens)]);
+    }
+
+    private Claims legacyParse(String token) {
+        return Jwts.parser().verifyWith(legacyKey).build().parseSignedClaims(token).getPayload();
+    }
+}
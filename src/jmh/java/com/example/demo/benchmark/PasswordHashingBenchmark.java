@@ -0,0 +1,52 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.service.PasswordHashingService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+// Thông lượng băm/kiểm tra mật khẩu ở từng mức cost, trực tiếp và qua executor của PasswordHashingService
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(Threads.MAX)
+public class PasswordHashingBenchmark {
+
+    @Param({"4", "8", "10", "12"})
+    public int strength;
+
+    private BCryptPasswordEncoder rawEncoder;
+    private PasswordHashingService service;
+    private String encoded;
+
+    @Setup
+    public void setup() {
+        rawEncoder = new BCryptPasswordEncoder(strength);
+        // Hàng đợi đủ lớn để benchmark đo thông lượng, không đo việc từ chối
+        service = BenchmarkFixtures.passwordHashingService(strength, 1024);
+        encoded = rawEncoder.encode("MatKhau@2024");
+    }
+
+    @TearDown
+    public void tearDown() {
+        service.shutdown();
+    }
+
+    @Benchmark
+    public String encodeOnCallerThread() {
+        return rawEncoder.encode("MatKhau@2024");
+    }
+
+    @Benchmark
+    public String encodeThroughService() {
+        return service.encode("MatKhau@2024");
+    }
+
+    @Benchmark
+    public boolean matchesThroughService() {
+        return service.matches("MatKhau@2024", encoded);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.Demo2Application;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+// Khởi động lạnh: mỗi fork là một JVM mới và chỉ đo một lần (SingleShotTime), trên cấu hình test (H2 in-memory).
+// startup: tới khi SpringApplication.run trả về (context refresh + ApplicationReadyEvent, kể cả nạp Bloom filter/chỉ mục);
+// firstRequest: thêm request HTTP đầu tiên (/actuator/health, có kiểm tra database).
+// So sánh (jmh.args thay cho -f 1 mặc định của profile):
+//   mặc định: mvn -Pbenchmark test-compile exec:exec -Djmh.args="StartupBenchmark"
+//   AOT:      mvn -Pbenchmark,fast-start package exec:exec -DskipTests -Dfast-start.training.skip=true
+//             -Djmh.args="StartupBenchmark -jvmArgsAppend -Dspring.aot.enabled=true"
+// CDS không đo được ở đây: JVM từ chối archive khi classpath có thư mục (target/classes), chỉ dùng với jar đã giải nén của profile fast-start
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class StartupBenchmark {
+
+    private ConfigurableApplicationContext context;
+
+    @Benchmark
+    public ConfigurableApplicationContext startup() {
+        context = start();
+        return context;
+    }
+
+    @Benchmark
+    public int firstRequest() throws Exception {
+        context = start();
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/actuator/health")).build();
+        int status = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        if (status != 200) {
+            throw new IllegalStateException("/actuator/health trả về " + status);
+        }
+        return status;
+    }
+
+    @TearDown(Level.Iteration)
+    public void stop() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    private static ConfigurableApplicationContext start() {
+        return SpringApplication.run(Demo2Application.class, "--server.port=0", "--spring.main.banner-mode=off");
+    }
+}
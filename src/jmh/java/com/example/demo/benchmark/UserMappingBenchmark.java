@@ -0,0 +1,70 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.dto.UserDTO;
+import com.example.demo.entity.User;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Chuyển User -> UserDTO cho một trang get-all: map bằng setter (cách cũ của AdminAPI),
+// constructor projection (cách repository dùng hiện nay) và serialize JSON của trang
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class UserMappingBenchmark {
+
+    @Param({"50"})
+    public int pageSize;
+
+    private List<User> users;
+    private List<UserDTO> page;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setup() {
+        users = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            users.add(BenchmarkFixtures.user("nguoidung." + i + "@example.com"));
+        }
+        page = projection();
+        objectMapper = new ObjectMapper();
+    }
+
+    @Benchmark
+    public List<UserDTO> setterMapping() {
+        List<UserDTO> userDTOs = new ArrayList<>(users.size());
+        for (User user : users) {
+            UserDTO userDTO = new UserDTO();
+            userDTO.setId(user.getId());
+            userDTO.setEmail(user.getEmail());
+            userDTO.setFull_name(user.getFull_name());
+            userDTO.setPhone(user.getPhone());
+            userDTO.setRole_id(user.getRole() != null ? user.getRole().getId() : null);
+            userDTO.setRoleName(user.getRole() != null ? user.getRole().getName() : null);
+            userDTOs.add(userDTO);
+        }
+        return userDTOs;
+    }
+
+    @Benchmark
+    public List<UserDTO> projection() {
+        List<UserDTO> userDTOs = new ArrayList<>(users.size());
+        for (User user : users) {
+            userDTOs.add(new UserDTO(user.getId(), user.getEmail(), user.getFull_name(), user.getPhone(),
+                    user.getRole() != null ? user.getRole().getId() : null,
+                    user.getRole() != null ? user.getRole().getName() : null));
+        }
+        return userDTOs;
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
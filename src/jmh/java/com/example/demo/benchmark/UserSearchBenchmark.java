@@ -0,0 +1,75 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.dto.UserDTO;
+import com.example.demo.util.SlugUtil;
+import com.example.demo.util.TextFolding;
+import com.example.demo.util.UserTrigramIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Tìm top-20 user trên 1 triệu user tên tiếng Việt: chỉ mục trigram so với quét tuần tự chuỗi đã bỏ dấu
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class UserSearchBenchmark {
+
+    private static final String[] FAMILY = {"Nguyễn", "Trần", "Lê", "Phạm", "Hoàng", "Huỳnh", "Phan", "Vũ", "Võ", "Đặng",
+            "Bùi", "Đỗ", "Hồ", "Ngô", "Dương", "Lý"};
+    private static final String[] MIDDLE = {"Văn", "Thị", "Hoàng", "Ngọc", "Minh", "Quốc", "Thu", "Xuân", "Đức", "Mỹ"};
+    private static final String[] GIVEN = {"An", "Bình", "Châu", "Dũng", "Giang", "Hà", "Hương", "Khánh", "Linh", "Lộc",
+            "Mai", "Nam", "Ngọc", "Phúc", "Quân", "Quỳnh", "Sơn", "Tâm", "Thảo", "Trang", "Trường", "Tuấn", "Uyên", "Yến"};
+
+    @Param({"1000000"})
+    private int users;
+
+    // Tên phổ biến (nhiều ứng viên), email gần như duy nhất, số điện thoại, đầu từ 2 ký tự
+    @Param({"nguyen van", "nguoidung.424242", "0912424242", "đặ"})
+    private String query;
+
+    private UserTrigramIndex index;
+    private String[] folded;
+    private UserDTO[] dtos;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        index = new UserTrigramIndex();
+        folded = new String[users];
+        dtos = new UserDTO[users];
+        for (int i = 0; i < users; i++) {
+            String name = FAMILY[random.nextInt(FAMILY.length)] + " " + MIDDLE[random.nextInt(MIDDLE.length)] + " "
+                    + GIVEN[random.nextInt(GIVEN.length)];
+            UserDTO user = new UserDTO(UUID.randomUUID(), "nguoidung." + i + "@gmail.com", name,
+                    String.format("09%08d", i), UUID.randomUUID(), "customer");
+            user.setSlug(SlugUtil.generate(name));
+            index.upsert(user);
+            dtos[i] = user;
+            folded[i] = TextFolding.fold(name) + "\n" + TextFolding.fold(user.getEmail()) + "\n" + user.getPhone();
+        }
+    }
+
+    @Benchmark
+    public List<UserDTO> trigramIndex() {
+        return index.search(query, 20, 1000);
+    }
+
+    @Benchmark
+    public List<UserDTO> linearScan() {
+        String q = TextFolding.fold(query);
+        List<UserDTO> results = new ArrayList<>(20);
+        for (int i = 0; i < folded.length && results.size() < 20; i++) {
+            if (folded[i].contains(q)) {
+                results.add(dtos[i]);
+            }
+        }
+        return results;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.dto.UserDTO;
+import com.example.demo.dto.ValidationError;
+import com.example.demo.validation.UserValidator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+// So sánh đường regex cũ của register với UserValidator (scanner một lượt) trên tên tiếng Việt thực tế
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ValidationBenchmark {
+
+    private static final Pattern PHONE_PATTERN = Pattern.compile("^(?:\\+84|0)\\d{9,10}$");
+    private static final Pattern FULL_NAME_PATTERN = Pattern.compile("^[A-Za-zÀ-ỹ0-9]+( [A-Za-zÀ-ỹ0-9]+)*$");
+    private static final Pattern EMAIL_PATTERN = Pattern.compile("^[\\w-\\.]+@([\\w-]+\\.)+[\\w-]{2,4}$");
+
+    private static final String[] NAMES = {
+            "Nguyễn Văn An", "Trần Thị Bích Ngọc", "Lê Hoàng Phúc", "Phạm Thị Thu Hương",
+            "Đặng Quốc Bảo", "Võ Thị Mỹ Duyên", "Huỳnh Ngọc Ánh", "Bùi Xuân Trường",
+            "Đỗ Thị Kim Liên", "Hồ Nguyễn Minh Triết", "Ngô Thị Diễm Quỳnh", "Dương Văn Lộc"
+    };
+
+    private UserValidator validator;
+    private UserDTO[] users;
+    private int next;
+
+    @Setup
+    public void setup() {
+        validator = new UserValidator();
+        users = new UserDTO[NAMES.length];
+        for (int i = 0; i < NAMES.length; i++) {
+            UserDTO user = new UserDTO();
+            user.setEmail("nguoidung." + i + "@gmail.com");
+            user.setFull_name(NAMES[i]);
+            user.setPhone(i % 2 == 0 ? "0912345678" : "+84987654321");
+            user.setPassword("MatKhau@2024");
+            users[i] = user;
+        }
+    }
+
+    private UserDTO nextUser() {
+        next = (next + 1) % users.length;
+        return users[next];
+    }
+
+    @Benchmark
+    public List<ValidationError> regexPath() {
+        return legacyValidate(nextUser());
+    }
+
+    @Benchmark
+    public List<ValidationError> compiledScanners() {
+        return validator.validateRegistration(nextUser());
+    }
+
+    // Bản sao phần kiểm tra định dạng của UserAPI.register trước khi có UserValidator
+    private static List<ValidationError> legacyValidate(UserDTO userDTO) {
+        List<ValidationError> errors = new ArrayList<>();
+        if (userDTO.getEmail() == null || userDTO.getEmail().isEmpty()) {
+            errors.add(new ValidationError("email", "Email không được để trống"));
+        } else if (userDTO.getEmail().contains(" ")) {
+            errors.add(new ValidationError("email", "Email không được chứa khoảng trắng"));
+        } else if (!EMAIL_PATTERN.matcher(userDTO.getEmail()).matches()) {
+            errors.add(new ValidationError("email", "Email không hợp lệ"));
+        }
+        if (userDTO.getFull_name() == null || userDTO.getFull_name().isEmpty()) {
+            errors.add(new ValidationError("full_name", "Tên không được để trống"));
+        } else if (!userDTO.getFull_name().trim().equals(userDTO.getFull_name())) {
+            errors.add(new ValidationError("full_name", "Tên không được chứa khoảng trắng ở đầu hoặc cuối"));
+        } else if (!FULL_NAME_PATTERN.matcher(userDTO.getFull_name()).matches()) {
+            errors.add(new ValidationError("full_name", "Tên chỉ được chứa chữ cái, số và khoảng trắng giữa các từ"));
+        } else if (containsEmoji(userDTO.getFull_name())) {
+            errors.add(new ValidationError("full_name", "Tên không được chứa icon hoặc emoji"));
+        }
+        if (userDTO.getPhone() == null || userDTO.getPhone().isEmpty()) {
+            errors.add(new ValidationError("phone", "Số điện thoại không được để trống"));
+        } else if (!PHONE_PATTERN.matcher(userDTO.getPhone()).matches()) {
+            errors.add(new ValidationError("phone", "Số điện thoại không hợp lệ"));
+        }
+        if (userDTO.getPassword() == null || userDTO.getPassword().isEmpty()) {
+            errors.add(new ValidationError("password", "Mật khẩu không được để trống"));
+        }
+        return errors;
+    }
+
+    private static boolean containsEmoji(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            int codePoint = text.codePointAt(i);
+            if ((codePoint >= 0x1F600 && codePoint <= 0x1F64F) || (codePoint >= 0x1F300 && codePoint <= 0x1F5FF)
+                    || (codePoint >= 0x1F680 && codePoint <= 0x1F6FF) || (codePoint >= 0x1F1E6 && codePoint <= 0x1F1FF)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.demo.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Deflater;
+
+// Histogram độ trễ (micro giây) của một operation:
+// responseTime tính từ thời điểm request lẽ ra được gửi theo lịch (không bị coordinated omission),
+// serviceTime tính từ lúc thực sự gửi, chỉ để so sánh
+class LatencyStats {
+
+    private static final double[] PERCENTILES = {50, 75, 90, 99, 99.9, 99.99, 100};
+
+    private final Histogram responseTime = new ConcurrentHistogram(3);
+    private final Histogram serviceTime = new ConcurrentHistogram(3);
+    // HTTP status -> số lần; 0 là lỗi kết nối/timeout
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    private final LongAdder errors = new LongAdder();
+    // Request đến lượt gửi khi load test đã hết giờ chờ và bị bỏ (cũng tính vào errors)
+    private final LongAdder unsent = new LongAdder();
+
+    void record(long intendedNanos, long sentNanos, long completedNanos, int status) {
+        responseTime.recordValue(Math.max(1, (completedNanos - intendedNanos) / 1000));
+        serviceTime.recordValue(Math.max(1, (completedNanos - sentNanos) / 1000));
+        statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+        if (status < 200 || status >= 400) {
+            errors.increment();
+        }
+    }
+
+    // Không có service time vì chưa gửi; response time tính tới lúc bỏ
+    void recordUnsent(long intendedNanos, long abandonedNanos) {
+        responseTime.recordValue(Math.max(1, (abandonedNanos - intendedNanos) / 1000));
+        unsent.increment();
+        errors.increment();
+    }
+
+    long count() {
+        return responseTime.getTotalCount();
+    }
+
+    // Số request thật sự nhận được trả lời (hoặc lỗi kết nối), không tính unsent
+    long completed() {
+        return count() - unsent.sum();
+    }
+
+    long errors() {
+        return errors.sum();
+    }
+
+    double responsePercentileMillis(double percentile) {
+        return responseTime.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    Map<String, Object> toReport(double measuredSeconds) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("count", count());
+        report.put("errors", errors());
+        report.put("unsent", unsent.sum());
+        report.put("throughputPerSecond", round(completed() / measuredSeconds));
+        Map<String, Long> statusCounts = new TreeMap<>();
+        statuses.forEach((status, count) -> statusCounts.put(String.valueOf(status), count.sum()));
+        report.put("statuses", statusCounts);
+        report.put("responseTimeMs", summary(responseTime));
+        report.put("serviceTimeMs", summary(serviceTime));
+        // Histogram đầy đủ (HdrHistogram nén, base64, đơn vị micro giây): Histogram.decodeFromCompressedByteBuffer để gộp/so sánh
+        report.put("responseTimeHistogram", encode(responseTime));
+        return report;
+    }
+
+    private static Map<String, Double> summary(Histogram histogram) {
+        Map<String, Double> summary = new LinkedHashMap<>();
+        summary.put("mean", round(histogram.getMean() / 1000.0));
+        for (double percentile : PERCENTILES) {
+            String key = percentile == 100 ? "max"
+                    : "p" + (percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile));
+            summary.put(key, round(histogram.getValueAtPercentile(percentile) / 1000.0));
+        }
+        return summary;
+    }
+
+    private static String encode(Histogram histogram) {
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer, Deflater.BEST_COMPRESSION);
+        return Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length));
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
@@ -0,0 +1,324 @@
+package com.example.demo.loadtest;
+
+import com.example.demo.Demo2Application;
+import com.example.demo.dto.ImportReportDTO;
+import com.example.demo.entity.Role;
+import com.example.demo.entity.User;
+import com.example.demo.repository.RoleRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.service.UserImportService;
+import com.example.demo.support.TestUsers;
+import com.example.demo.util.JwtUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.File;
+import java.io.StringReader;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Load test open loop cho user API: khởi động ứng dụng trên H2 in-memory (cấu hình test), tạo user mẫu,
+// rồi gửi hỗn hợp register/login/refresh/get-by-email/admin theo lịch cố định (--rate request/giây).
+// Độ trễ tính từ thời điểm request lẽ ra được gửi, nên server chậm làm request xếp hàng và được ghi nhận đúng.
+// Chạy: mvn -Ploadtest test-compile exec:exec -Dloadtest.args="--rate=500 --duration=2m --mix=login=50,get-by-email=50"
+public final class LoadTest {
+
+    private static final String PASSWORD = "MatKhau@2024";
+    private static final String[] FAMILY = {"Nguyễn", "Trần", "Lê", "Phạm", "Hoàng", "Phan", "Vũ", "Đặng", "Bùi", "Đỗ"};
+    private static final String[] GIVEN = {"Văn An", "Thị Bình", "Minh Châu", "Quốc Dũng", "Thu Hà", "Ngọc Lan",
+            "Đức Phúc", "Thị Quỳnh", "Xuân Sơn", "Mỹ Tâm"};
+    private static final String[] SEARCH_TERMS = {"nguyen", "tran thi", "dang", "le van", "phuc", "quynh", "loadtest.1", "0900"};
+
+    private final LoadTestOptions options;
+    private final ConfigurableApplicationContext context;
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong registered = new AtomicLong();
+    private final String runTag = Long.toString(System.currentTimeMillis(), 36);
+
+    private String baseUrl;
+    private String adminToken;
+    private final List<String> loginEmails = new ArrayList<>();
+    private final List<String> accessTokens = new ArrayList<>();
+    private final List<String> refreshTokens = new ArrayList<>();
+    private final List<String> seedEmails = new ArrayList<>();
+
+    private LoadTest(LoadTestOptions options, ConfigurableApplicationContext context) {
+        this.options = options;
+        this.context = context;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        ConfigurableApplicationContext context = SpringApplication.run(Demo2Application.class, options.springArgs());
+        try {
+            LoadTest loadTest = new LoadTest(options, context);
+            loadTest.prepare();
+            loadTest.run();
+        } finally {
+            context.close();
+        }
+    }
+
+    // User mẫu qua đường import (băm mật khẩu song song, vào Bloom filter và chỉ mục tìm kiếm như user thật),
+    // một admin và session-users user đăng nhập sẵn để refresh/get-by-email
+    private void prepare() throws Exception {
+        baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+
+        StringBuilder csv = new StringBuilder("email,password,full_name,phone\n");
+        for (int i = 0; i < options.getUsers(); i++) {
+            String email = "loadtest." + i + "@example.vn";
+            seedEmails.add(email);
+            csv.append(email).append(',').append(PASSWORD).append(',')
+                    .append(FAMILY[i % FAMILY.length]).append(' ').append(GIVEN[(i / FAMILY.length) % GIVEN.length]).append(',')
+                    .append(String.format("09%08d", i)).append('\n');
+        }
+        long started = System.nanoTime();
+        ImportReportDTO report = context.getBean(UserImportService.class)
+                .importUsers(new StringReader(csv.toString()), UserImportService.Format.CSV, null);
+        if (report.getFailed() > 0) {
+            throw new IllegalStateException("Không tạo được user mẫu: " + report.getErrors());
+        }
+        System.out.printf("Đã tạo %d user mẫu trong %d ms%n", report.getImported(), (System.nanoTime() - started) / 1_000_000);
+
+        adminToken = context.getBean(JwtUtil.class).generateAccessToken(createAdmin());
+
+        for (int i = 0; i < options.getSessionUsers(); i++) {
+            HttpResponse<String> response = send(post("/api/users/login",
+                    Map.of("email", seedEmails.get(i), "password", PASSWORD)));
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Login user mẫu thất bại: " + response.statusCode() + " " + response.body());
+            }
+            Map<?, ?> body = objectMapper.readValue(response.body(), Map.class);
+            accessTokens.add((String) body.get("accessToken"));
+            refreshTokens.add((String) body.get("refreshToken"));
+        }
+        // Login trong lúc chạy xoay refresh token, nên không dùng user đã có session
+        loginEmails.addAll(seedEmails.subList(options.getSessionUsers(), seedEmails.size()));
+    }
+
+    private User createAdmin() {
+        Role role = TestUsers.role(context.getBean(RoleRepository.class), "admin");
+        User admin = TestUsers.user(role, context.getBean(PasswordEncoder.class).encode(PASSWORD), "Quan Tri Tai");
+        admin.setEmail("loadtest.admin@example.vn");
+        admin.setPhone("0911111111");
+        return context.getBean(UserRepository.class).save(admin);
+    }
+
+    private void run() throws Exception {
+        Map<Operation, LatencyStats> stats = new EnumMap<>(Operation.class);
+        Operation[] weighted = weightedOperations();
+        for (Operation operation : weighted) {
+            stats.computeIfAbsent(operation, o -> new LatencyStats());
+        }
+
+        ExecutorService workers = Executors.newFixedThreadPool(options.getConcurrency());
+        Random random = new Random(options.getSeed());
+        double intervalNanos = 1_000_000_000.0 / options.getRate();
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        long measureFrom = start + options.getWarmup().toNanos();
+        long end = measureFrom + options.getDuration().toNanos();
+        long scheduled = 0;
+        long maxLag = 0;
+        double offset = 0;
+
+        System.out.printf("Chạy %.0f req/s (%s) trong %ds, warmup %ds, %d thread gửi%n", options.getRate(),
+                options.getArrival(), options.getDuration().toSeconds(), options.getWarmup().toSeconds(), options.getConcurrency());
+        while (true) {
+            long intended = start + (long) offset;
+            if (intended >= end) {
+                break;
+            }
+            long now = System.nanoTime();
+            while (now < intended) {
+                LockSupport.parkNanos(intended - now);
+                now = System.nanoTime();
+            }
+            maxLag = Math.max(maxLag, now - intended);
+
+            Operation operation = weighted[random.nextInt(weighted.length)];
+            int pick = random.nextInt(Integer.MAX_VALUE);
+            LatencyStats target = intended >= measureFrom ? stats.get(operation) : null;
+            workers.execute(new Request(operation, pick, intended, target));
+            scheduled++;
+
+            offset += options.getArrival() == LoadTestOptions.Arrival.POISSON
+                    ? -Math.log(1 - random.nextDouble()) * intervalNanos
+                    : intervalNanos;
+        }
+        workers.shutdown();
+        if (!workers.awaitTermination(2, TimeUnit.MINUTES)) {
+            // Request chưa kịp gửi vẫn được ghi là lỗi với độ trễ tới lúc bỏ, không thì lại là coordinated omission
+            long abandoned = System.nanoTime();
+            for (Runnable unsent : workers.shutdownNow()) {
+                ((Request) unsent).abandon(abandoned);
+            }
+            // Request đang gửi bị ngắt và ghi status 0 trước khi in báo cáo
+            workers.awaitTermination(10, TimeUnit.SECONDS);
+        }
+
+        double measuredSeconds = options.getDuration().toNanos() / 1e9;
+        printSummary(stats, measuredSeconds);
+        writeReport(stats, measuredSeconds, scheduled, maxLag);
+    }
+
+    private Operation[] weightedOperations() {
+        List<Operation> weighted = new ArrayList<>();
+        options.getMix().forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                weighted.add(operation);
+            }
+        });
+        if (weighted.isEmpty()) {
+            throw new IllegalArgumentException("mix không có operation nào");
+        }
+        return weighted.toArray(new Operation[0]);
+    }
+
+    // Một request theo lịch; target null khi thuộc warmup
+    private final class Request implements Runnable {
+        private final Operation operation;
+        private final int pick;
+        private final long intended;
+        private final LatencyStats target;
+
+        private Request(Operation operation, int pick, long intended, LatencyStats target) {
+            this.operation = operation;
+            this.pick = pick;
+            this.intended = intended;
+            this.target = target;
+        }
+
+        @Override
+        public void run() {
+            long sent = System.nanoTime();
+            int status;
+            try {
+                status = send(request(operation, pick)).statusCode();
+            } catch (Exception e) {
+                status = 0;
+            }
+            if (target != null) {
+                target.record(intended, sent, System.nanoTime(), status);
+            }
+        }
+
+        private void abandon(long abandonedNanos) {
+            if (target != null) {
+                target.recordUnsent(intended, abandonedNanos);
+            }
+        }
+    }
+
+    private HttpRequest request(Operation operation, int pick) throws Exception {
+        return switch (operation) {
+            case REGISTER -> {
+                long n = registered.incrementAndGet();
+                yield post("/api/users/register", Map.of(
+                        "email", "register." + runTag + "." + n + "@example.vn",
+                        "password", PASSWORD,
+                        "full_name", FAMILY[pick % FAMILY.length] + " " + GIVEN[pick % GIVEN.length],
+                        "phone", String.format("08%08d", n % 100_000_000)));
+            }
+            case LOGIN -> post("/api/users/login",
+                    Map.of("email", loginEmails.get(pick % loginEmails.size()), "password", PASSWORD));
+            case REFRESH -> post("/api/users/refresh-token",
+                    Map.of("refreshToken", refreshTokens.get(pick % refreshTokens.size())));
+            case GET_BY_EMAIL -> get("/api/users/get-by-email/" + seedEmails.get(pick % seedEmails.size()),
+                    accessTokens.get(pick % accessTokens.size()));
+            case ADMIN_GET_ALL -> get("/api/admin/users/get-all?limit=20", adminToken);
+            case ADMIN_SEARCH -> get("/api/admin/users/search?limit=20&q="
+                    + URLEncoder.encode(SEARCH_TERMS[pick % SEARCH_TERMS.length], StandardCharsets.UTF_8), adminToken);
+        };
+    }
+
+    private HttpRequest post(String path, Map<String, String> body) throws Exception {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                .build();
+    }
+
+    private HttpRequest get(String path, String token) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws Exception {
+        return http.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static void printSummary(Map<Operation, LatencyStats> stats, double measuredSeconds) {
+        System.out.printf("%n%-15s %9s %7s %10s %10s %10s %10s %10s%n",
+                "operation", "count", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        stats.forEach((operation, s) -> System.out.printf("%-15s %9d %7d %10.1f %10.2f %10.2f %10.2f %10.2f%n",
+                operation.key(), s.count(), s.errors(), s.completed() / measuredSeconds,
+                s.responsePercentileMillis(50), s.responsePercentileMillis(99),
+                s.responsePercentileMillis(99.9), s.responsePercentileMillis(100)));
+    }
+
+    private void writeReport(Map<Operation, LatencyStats> stats, double measuredSeconds, long scheduled, long maxLagNanos)
+            throws Exception {
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("rate", options.getRate());
+        config.put("arrival", options.getArrival());
+        config.put("durationSeconds", options.getDuration().toSeconds());
+        config.put("warmupSeconds", options.getWarmup().toSeconds());
+        config.put("concurrency", options.getConcurrency());
+        config.put("users", options.getUsers());
+        config.put("sessionUsers", options.getSessionUsers());
+        config.put("seed", options.getSeed());
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        options.getMix().forEach((operation, weight) -> mix.put(operation.key(), weight));
+        config.put("mix", mix);
+        config.put("spring", options.getSpringProperties());
+        config.put("java", Runtime.version().toString());
+        // spring.threads.virtual.enabled chỉ có tác dụng từ JDK 21
+        config.put("virtualThreads", context.getEnvironment().getProperty("spring.threads.virtual.enabled", Boolean.class, false)
+                && Runtime.version().feature() >= 21);
+        config.put("processors", Runtime.getRuntime().availableProcessors());
+
+        Map<String, Object> operations = new LinkedHashMap<>();
+        stats.forEach((operation, s) -> operations.put(operation.key(), s.toReport(measuredSeconds)));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("finishedAt", Instant.now().toString());
+        report.put("config", config);
+        report.put("scheduledRequests", scheduled);
+        // Bộ phát tải bị trễ so với lịch nhiều nhất bao lâu; lớn thì máy chạy load test là nút thắt
+        report.put("generatorMaxLagMs", Math.round(maxLagNanos / 1000.0) / 1000.0);
+        report.put("operations", operations);
+
+        File file = new File(options.getReport());
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        objectMapper.enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, report);
+        System.out.println("Báo cáo JSON: " + file.getAbsolutePath());
+    }
+}
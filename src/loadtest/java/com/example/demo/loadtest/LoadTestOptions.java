@@ -0,0 +1,111 @@
+package com.example.demo.loadtest;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Tham số dòng lệnh dạng --key=value; key không thuộc load test được chuyển nguyên cho Spring (vd. --spring.threads.virtual.enabled=true)
+@Getter
+@Setter
+class LoadTestOptions {
+
+    enum Arrival { UNIFORM, POISSON }
+
+    // Số request mỗi giây theo lịch cố định, không phụ thuộc server trả lời nhanh hay chậm (open loop)
+    private double rate = 200;
+    private Duration duration = Duration.ofSeconds(60);
+    // Request trong khoảng này vẫn chạy nhưng không ghi vào histogram
+    private Duration warmup = Duration.ofSeconds(10);
+    private Arrival arrival = Arrival.POISSON;
+    // Số thread gửi request; hết thread thì request xếp hàng và thời gian chờ được tính vào độ trễ
+    private int concurrency = 200;
+    private int users = 1000;
+    // Số user đăng nhập sẵn lúc chuẩn bị để dùng cho refresh và get-by-email (không bị login trong lúc chạy)
+    private int sessionUsers = 100;
+    private long seed = 42;
+    private String report = "target/loadtest-report.json";
+    private Map<Operation, Integer> mix = defaultMix();
+    private Map<String, String> springProperties = defaultSpringProperties();
+
+    static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Tham số phải có dạng --key=value: " + arg);
+            }
+            String key = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            switch (key) {
+                case "rate" -> options.rate = Double.parseDouble(value);
+                case "duration" -> options.duration = parseDuration(value);
+                case "warmup" -> options.warmup = parseDuration(value);
+                case "arrival" -> options.arrival = Arrival.valueOf(value.toUpperCase());
+                case "concurrency" -> options.concurrency = Integer.parseInt(value);
+                case "users" -> options.users = Integer.parseInt(value);
+                case "session-users" -> options.sessionUsers = Integer.parseInt(value);
+                case "seed" -> options.seed = Long.parseLong(value);
+                case "report" -> options.report = value;
+                case "mix" -> options.mix = parseMix(value);
+                default -> options.springProperties.put(key, value);
+            }
+        }
+        if (options.sessionUsers >= options.users) {
+            throw new IllegalArgumentException("session-users phải nhỏ hơn users");
+        }
+        return options;
+    }
+
+    String[] springArgs() {
+        return springProperties.entrySet().stream().map(e -> "--" + e.getKey() + "=" + e.getValue()).toArray(String[]::new);
+    }
+
+    // 90s, 2m, 500ms hoặc số giây
+    static Duration parseDuration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        if (value.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        return Duration.ofSeconds(Long.parseLong(value));
+    }
+
+    // register=5,login=10,... trọng số tương đối
+    static Map<Operation, Integer> parseMix(String value) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String part : value.split(",")) {
+            String[] pair = part.split("=");
+            mix.put(Operation.fromKey(pair[0].trim()), Integer.parseInt(pair[1].trim()));
+        }
+        return mix;
+    }
+
+    private static Map<Operation, Integer> defaultMix() {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        mix.put(Operation.REGISTER, 5);
+        mix.put(Operation.LOGIN, 10);
+        mix.put(Operation.REFRESH, 10);
+        mix.put(Operation.GET_BY_EMAIL, 60);
+        mix.put(Operation.ADMIN_GET_ALL, 5);
+        mix.put(Operation.ADMIN_SEARCH, 10);
+        return mix;
+    }
+
+    // Mọi request đến từ cùng một IP nên tắt rate limit; access token sống lâu hơn một lần chạy
+    private static Map<String, String> defaultSpringProperties() {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("server.port", "0");
+        properties.put("spring.main.banner-mode", "off");
+        properties.put("rate-limit.enabled", "false");
+        properties.put("jwt.access-token-expiration", "86400000");
+        properties.put("logging.level.root", "warn");
+        return properties;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.demo.loadtest;
+
+// Các loại request trong hỗn hợp tải, tên dùng trong --mix và trong báo cáo
+enum Operation {
+    REGISTER("register"),
+    LOGIN("login"),
+    REFRESH("refresh"),
+    GET_BY_EMAIL("get-by-email"),
+    ADMIN_GET_ALL("admin-get-all"),
+    ADMIN_SEARCH("admin-search");
+
+    private final String key;
+
+    Operation(String key) {
+        this.key = key;
+    }
+
+    String key() {
+        return key;
+    }
+
+    static Operation fromKey(String key) {
+        for (Operation operation : values()) {
+            if (operation.key.equals(key)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Không có operation " + key);
+    }
+}
@@ -0,0 +1,24 @@
+#!/bin/sh
+# So sánh platform thread và virtual thread trên login và get-by-email với cùng lịch gửi (open loop, cùng seed).
+# Cần JDK 21+ cho lượt virtual: trên JDK 17 spring.threads.virtual.enabled bị bỏ qua nên lượt đó bị bỏ.
+# Chạy từ thư mục gốc: sh src/loadtest/thread-modes.sh [rate] [duration]
+# Báo cáo: target/loadtest-platform.json, target/loadtest-virtual.json (config.virtualThreads cho biết chế độ thật sự chạy)
+set -e
+
+RATE=${1:-300}
+DURATION=${2:-60s}
+ARGS="--rate=$RATE --duration=$DURATION --warmup=15s --mix=login=20,get-by-email=80 --seed=42"
+
+JAVA_MAJOR=$(java -XshowSettings:properties -version 2>&1 | sed -n 's/ *java.specification.version = //p')
+
+./mvnw -B -q -Ploadtest test-compile exec:exec \
+    -Dloadtest.report.file=target/loadtest-platform.json \
+    -Dloadtest.args="$ARGS --spring.threads.virtual.enabled=false"
+
+if [ "$JAVA_MAJOR" -ge 21 ]; then
+    ./mvnw -B -q -Ploadtest exec:exec \
+        -Dloadtest.report.file=target/loadtest-virtual.json \
+        -Dloadtest.args="$ARGS --spring.threads.virtual.enabled=true"
+else
+    echo "JDK $JAVA_MAJOR: bỏ qua lượt virtual thread (cần JDK 21+)"
+fi
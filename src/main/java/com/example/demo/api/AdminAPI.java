@@ -1,22 +1,45 @@
 package com.example.demo.api;
 
+import com.example.demo.dto.ErrorResponse;
+import com.example.demo.dto.ImportReportDTO;
+import com.example.demo.dto.UserChangeEvent;
 import com.example.demo.dto.UserDTO;
+import com.example.demo.dto.UserPageDTO;
+import com.example.demo.dto.ValidationError;
+import com.example.demo.entity.AuditLog;
 import com.example.demo.entity.Role;
 import com.example.demo.entity.User;
-import com.example.demo.repository.RoleRepository;
+import com.example.demo.repository.UserPageQuery;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.security.RoleRegistry;
+import com.example.demo.service.AuditService;
+import com.example.demo.service.EmailExistenceService;
 import com.example.demo.service.RefreshTokenService;
+import com.example.demo.service.TokenRevocationService;
+import com.example.demo.service.UserImportService;
+import com.example.demo.service.UserSearchService;
+import com.example.demo.util.CursorCodec;
+import com.example.demo.util.ETags;
+import com.example.demo.util.SlugUtil;
+import com.example.demo.validation.UserValidator;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.Random;
 import java.util.UUID;
-import java.util.regex.Pattern;
 
 @RestController
 @RequestMapping("/api/admin/users")
@@ -26,7 +49,7 @@ public class AdminAPI {
     private UserRepository userRepository;
 
     @Autowired
-    private RoleRepository roleRepository;
+    private RoleRegistry roleRegistry;
 
     @Autowired
     private RefreshTokenService refreshTokenService;
@@ -34,25 +57,52 @@ public class AdminAPI {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
-    private static final Pattern PHONE_PATTERN = Pattern.compile("^(?:\\+84|0)\\d{9,10}$");
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private UserValidator userValidator;
+
+    @Autowired
+    private EmailExistenceService emailExistenceService;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private AuditService auditService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private UserSearchService userSearchService;
+
+    @Value("${admin.users.page-size.default:50}")
+    private int defaultPageSize;
+
+    @Value("${admin.users.page-size.max:200}")
+    private int maxPageSize;
+
+    @Value("${admin.users.search.limit.default:20}")
+    private int defaultSearchLimit;
+
+    @Value("${admin.users.search.limit.max:100}")
+    private int maxSearchLimit;
 
     // CRUD: Create (dành cho admin, khác với register)
     @PostMapping("/create")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<?> createUser(@RequestBody UserDTO userDTO) {
-        // Kiểm tra email đã tồn tại
-        if (userRepository.findByEmail(userDTO.getEmail()) != null) {
-            return ResponseEntity.badRequest().body("Email already exists");
-        }
+    public ResponseEntity<?> createUser(@RequestBody UserDTO userDTO, HttpServletRequest request) {
+        // Cùng quy tắc với register
+        List<ValidationError> errors = userValidator.validateRegistration(userDTO);
 
-        //kiem tra so dien thoai
-        if (userDTO.getPhone() == null || userDTO.getPhone().isEmpty()) {
-            return ResponseEntity.badRequest().body("Lỗi : Số điện thoại không được để trống");
+        // Kiểm tra email đã tồn tại
+        if (!UserValidator.hasError(errors, "email") && emailExistenceService.exists(userDTO.getEmail())) {
+            errors = UserValidator.withError(errors, 0, new ValidationError("email", "Email đã tồn tại"));
         }
-        //kiểm tra định dạng phone
-
-        if (!PHONE_PATTERN.matcher(userDTO.getPhone()).matches()) {
-            return ResponseEntity.badRequest().body("Lỗi : Số điện thoại không hợp lệ");
+        if (!errors.isEmpty()) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(errors));
         }
 
         User user = new User();
@@ -62,11 +112,7 @@ public class AdminAPI {
         user.setFull_name(userDTO.getFull_name());
 
 
-        String baseSlug = userDTO.getFull_name().toLowerCase().replace(" ", "-");
-        Random random = new Random();
-        int randomNumber = random.nextInt(1000);
-        String formattedNumber = String.format("%03d", randomNumber);
-        user.setSlug(baseSlug + "-" + formattedNumber);
+        user.setSlug(SlugUtil.generate(userDTO.getFull_name()));
 
         user.setPhone(userDTO.getPhone());
 
@@ -74,119 +120,219 @@ public class AdminAPI {
         UUID roleId = userDTO.getRole_id();
         Role role;
         if (roleId != null) {
-            role = roleRepository.findById(roleId)
-                    .orElse(null);
+            role = roleRegistry.findById(roleId);
             if (role == null) {
                 return ResponseEntity.badRequest().body("Lỗi: Role với ID " + roleId + " không tồn tại");
             }
         } else {
-            role = roleRepository.findByName("customer")
-                    .orElseGet(() -> {
-                        Role defaultRole = new Role();
-                        defaultRole.setId(UUID.randomUUID());
-                        defaultRole.setName("customer");
-                        defaultRole.setDescription("Khách hàng mặc định");
-                        return roleRepository.save(defaultRole);
-                    });
+            role = roleRegistry.defaultRole();
         }
         user.setRole(role);
 
         // Lưu user vào database
+        emailExistenceService.record(user.getEmail());
         userRepository.save(user);
+        eventPublisher.publishEvent(UserChangeEvent.created(user));
+        auditService.record(AuditLog.Action.USER_CREATED, user.getId(), request.getRemoteAddr(), "role=" + role.getName());
         return ResponseEntity.ok("User created successfully");
     }
 
-    // CRUD: Read (lấy danh sách tất cả users, dành cho admin)
+    // Import hàng loạt (dành cho admin): CSV có header hoặc JSON lines, đọc dạng stream
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ImportReportDTO> importUsers(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                       InputStream body, HttpServletRequest request) throws IOException {
+        UserImportService.Format format = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.parseMediaType("text/csv"))
+                ? UserImportService.Format.CSV
+                : UserImportService.Format.JSON_LINES;
+        ImportReportDTO report = userImportService.importUsers(new InputStreamReader(body, StandardCharsets.UTF_8), format,
+                request.getRemoteAddr());
+        // Tóm tắt cả lần import; từng user tạo ra đã có sự kiện USER_CREATED riêng
+        auditService.record(AuditLog.Action.USER_IMPORTED, null, request.getRemoteAddr(),
+                "imported=" + report.getImported() + ", failed=" + report.getFailed());
+        return ResponseEntity.ok(report);
+    }
+
+    // CRUD: Read (danh sách users theo trang, keyset pagination, dành cho admin)
     @GetMapping("/get-all")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<UserDTO>> getAllUsers() {
-        List<User> users = userRepository.findAll();
-        List<UserDTO> userDTOs = users.stream().map(user -> {
-            UserDTO userDTO = new UserDTO();
-            userDTO.setId(user.getId());
-            userDTO.setEmail(user.getEmail());
-            userDTO.setFull_name(user.getFull_name());
-            userDTO.setRole_id(user.getRole() != null ? user.getRole().getId() : null);
-            return userDTO;
-        }).toList();
-        return ResponseEntity.ok(userDTOs);
+    public ResponseEntity<?> getAllUsers(@RequestParam(required = false) String cursor,
+                                         @RequestParam(required = false) Integer limit,
+                                         @RequestParam(defaultValue = "email") String sort,
+                                         @RequestParam(defaultValue = "asc") String direction,
+                                         @RequestParam(required = false) String role,
+                                         @RequestParam(required = false) String emailPrefix) {
+        if (!UserPageQuery.SORTABLE_COLUMNS.contains(sort)) {
+            return ResponseEntity.badRequest().body("Lỗi: Chỉ hỗ trợ sắp xếp theo " + UserPageQuery.SORTABLE_COLUMNS);
+        }
+        if (!direction.equalsIgnoreCase("asc") && !direction.equalsIgnoreCase("desc")) {
+            return ResponseEntity.badRequest().body("Lỗi: direction phải là asc hoặc desc");
+        }
+        int pageSize = limit != null ? limit : defaultPageSize;
+        if (pageSize < 1) {
+            return ResponseEntity.badRequest().body("Lỗi: limit phải lớn hơn 0");
+        }
+
+        UserPageQuery query = new UserPageQuery();
+        query.setSort(sort);
+        query.setDescending(direction.equalsIgnoreCase("desc"));
+        query.setRoleName(role != null && !role.isEmpty() ? role : null);
+        query.setEmailPrefix(emailPrefix != null && !emailPrefix.isEmpty() ? emailPrefix : null);
+        query.setLimit(Math.min(pageSize, maxPageSize));
+        if (cursor != null && !cursor.isEmpty()) {
+            try {
+                CursorCodec.Position position = CursorCodec.decode(cursor);
+                // Cursor chỉ có nghĩa với đúng cột và chiều sắp xếp đã tạo ra nó
+                if (!position.getSort().equals(sort) || position.isDescending() != query.isDescending()) {
+                    return ResponseEntity.badRequest().body("Lỗi: Cursor không khớp với sort và direction của yêu cầu");
+                }
+                query.setAfterId(position.getId());
+                query.setAfterSortValue(position.getSortValue());
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body("Lỗi: Cursor không hợp lệ");
+            }
+        }
+
+        List<UserDTO> rows = userRepository.findPage(query);
+        String nextCursor = null;
+        if (rows.size() > query.getLimit()) {
+            rows = rows.subList(0, query.getLimit());
+            UserDTO last = rows.get(rows.size() - 1);
+            nextCursor = CursorCodec.encode(sort, query.isDescending(), last.getId(),
+                    sort.equals("email") ? last.getEmail() : last.getFull_name());
+        }
+        return ResponseEntity.ok(new UserPageDTO(rows, nextCursor));
+    }
+
+    // Tìm user theo họ tên, email, số điện thoại hoặc slug (không phân biệt dấu, hoa thường), dành cho admin.
+    // Trả về tối đa limit kết quả tốt nhất từ chỉ mục trong bộ nhớ, không truy vấn database. Khớp nguyên trường và
+    // khớp đầu từ luôn đầy đủ; kết quả chỉ khớp chuỗi con là gần đúng (xét tối đa user-search.max-candidates ứng viên)
+    @GetMapping("/search")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> searchUsers(@RequestParam(required = false) String q,
+                                         @RequestParam(required = false) Integer limit) {
+        if (q == null || q.isBlank()) {
+            return ResponseEntity.badRequest().body("Lỗi: Thiếu từ khóa tìm kiếm q");
+        }
+        int size = limit != null ? limit : defaultSearchLimit;
+        if (size < 1) {
+            return ResponseEntity.badRequest().body("Lỗi: limit phải lớn hơn 0");
+        }
+        if (!userSearchService.isLoaded()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5")
+                    .body("Lỗi: Chỉ mục tìm kiếm đang được nạp");
+        }
+        return ResponseEntity.ok(userSearchService.search(q, Math.min(size, maxSearchLimit)));
     }
 
     // CRUD: Read (lấy thông tin chi tiết một user theo id, dành cho admin)
     @GetMapping("/get-by-id/{id}")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<?> getUserById(@PathVariable UUID id) {
-        User user = userRepository.findById(id)
+    public ResponseEntity<?> getUserById(@PathVariable UUID id,
+                                         @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Client đã có bản mới nhất: chỉ hỏi version rồi trả 304
+        if (ifNoneMatch != null) {
+            String etag = userRepository.findVersionById(id)
+                    .map(v -> ETags.of(v.getId(), v.getVersion()))
+                    .orElse(null);
+            if (etag != null && ETags.noneMatchHits(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+        }
+
+        UserDTO userDTO = userRepository.findDtoById(id)
                 .orElse(null);
-        if (user == null) {
+        if (userDTO == null) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Lỗi: Người dùng với ID " + id + " không tồn tại");
         }
 
-        UserDTO userDTO = new UserDTO();
-        userDTO.setId(user.getId());
-        userDTO.setEmail(user.getEmail());
-        userDTO.setFull_name(user.getFull_name());
-        userDTO.setRole_id(user.getRole() != null ? user.getRole().getId() : null);
-
-        return ResponseEntity.ok(userDTO);
+        return ResponseEntity.ok().eTag(ETags.of(userDTO.getId(), userDTO.getVersion())).body(userDTO);
     }
 
     // CRUD: Update (cập nhật thông tin user, dành cho admin)
     @PutMapping("/update/{id}")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<?> updateUser(@PathVariable UUID id, @RequestBody UserDTO userDTO) {
+    public ResponseEntity<?> updateUser(@PathVariable UUID id, @RequestBody UserDTO userDTO,
+                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                        HttpServletRequest request) {
         User user = userRepository.findById(id)
                 .orElse(null);
         if (user == null) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Lỗi: Người dùng với ID " + id + " không tồn tại");
         }
 
+        // Ghi có điều kiện: client sửa trên bản cũ thì trả 412 thay vì ghi đè.
+        // Hai request cùng qua bước này vẫn bị chặn bởi version trong câu update (409)
+        if (ifMatch != null && !ETags.matchHits(ifMatch, ETags.of(user.getId(), user.getVersion()))) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                    .eTag(ETags.of(user.getId(), user.getVersion()))
+                    .body("Lỗi: Người dùng đã bị cập nhật bởi người khác, vui lòng tải lại");
+        }
+
+        // Email và tên bắt buộc; số điện thoại chỉ kiểm tra nếu được cung cấp
+        List<ValidationError> errors = userValidator.validateUpdate(userDTO);
+
         // Kiểm tra email mới có bị trùng không (trừ email của chính user đang cập nhật)
-        User existingUserWithEmail = userRepository.findByEmail(userDTO.getEmail());
-        if (existingUserWithEmail != null && !existingUserWithEmail.getId().equals(id)) {
-            return ResponseEntity.badRequest().body("Email already exists");
+        if (!UserValidator.hasError(errors, "email") && emailExistenceService.existsForOtherUser(userDTO.getEmail(), id)) {
+            errors = UserValidator.withError(errors, 0, new ValidationError("email", "Email đã tồn tại"));
+        }
+        if (!errors.isEmpty()) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(errors));
         }
 
-        // Kiểm tra số điện thoại nếu được cung cấp
         if (userDTO.getPhone() != null && !userDTO.getPhone().isEmpty()) {
-            if (!PHONE_PATTERN.matcher(userDTO.getPhone()).matches()) {
-                return ResponseEntity.badRequest().body("Lỗi: Số điện thoại không hợp lệ. Phải bắt đầu bằng +84 hoặc 0, theo sau là 9 hoặc 10 chữ số");
-            }
             user.setPhone(userDTO.getPhone());
         }
 
+        // Đổi email (subject của token), mật khẩu hoặc role thì token đã cấp phải bị thu hồi
+        boolean emailChanged = !userDTO.getEmail().equals(user.getEmail());
+        boolean revokeTokens = emailChanged;
+        boolean roleChanged = false;
+        boolean passwordChanged = userDTO.getPassword() != null && !userDTO.getPassword().isEmpty();
+
         user.setEmail(userDTO.getEmail());
-        if (userDTO.getPassword() != null && !userDTO.getPassword().isEmpty()) {
+        if (passwordChanged) {
             user.setPassword(passwordEncoder.encode(userDTO.getPassword())); // Mã hóa password mới
+            revokeTokens = true;
         }
         user.setFull_name(userDTO.getFull_name());
 
         // Tạo slug với 3 số ngẫu nhiên
-        String baseSlug = userDTO.getFull_name().toLowerCase().replace(" ", "-");
-        Random random = new Random();
-        int randomNumber = random.nextInt(1000);
-        String formattedNumber = String.format("%03d", randomNumber);
-        user.setSlug(baseSlug + "-" + formattedNumber);
+        user.setSlug(SlugUtil.generate(userDTO.getFull_name()));
 
         // Cập nhật role nếu được chỉ định
         UUID roleId = userDTO.getRole_id();
         if (roleId != null) {
-            Role role = roleRepository.findById(roleId)
-                    .orElse(null);
+            Role role = roleRegistry.findById(roleId);
             if (role == null) {
                 return ResponseEntity.badRequest().body("Lỗi: Role với ID " + roleId + " không tồn tại");
             }
+            if (user.getRole() == null || !role.getId().equals(user.getRole().getId())) {
+                revokeTokens = true;
+                roleChanged = true;
+            }
             user.setRole(role);
         }
 
-        userRepository.save(user);
-        return ResponseEntity.ok("User updated successfully");
+        emailExistenceService.record(user.getEmail());
+        user = userRepository.saveAndFlush(user);
+        if (revokeTokens) {
+            tokenRevocationService.revoke(id);
+        }
+        // Mật khẩu mới: phải đăng nhập lại, refresh token cũ cũng mất hiệu lực
+        if (passwordChanged) {
+            refreshTokenService.deleteByUserId(id);
+        }
+        eventPublisher.publishEvent(UserChangeEvent.updated(user));
+        auditService.record(AuditLog.Action.USER_UPDATED, id, request.getRemoteAddr(),
+                "email=" + emailChanged + ", password=" + passwordChanged + ", role=" + roleChanged);
+        return ResponseEntity.ok().eTag(ETags.of(user.getId(), user.getVersion())).body("User updated successfully");
     }
 
     // CRUD: Delete (xóa user, dành cho admin)
     @DeleteMapping("/delete/{id}")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<?> deleteUser(@PathVariable UUID id) {
+    public ResponseEntity<?> deleteUser(@PathVariable UUID id, HttpServletRequest request) {
         User user = userRepository.findById(id)
                 .orElse(null);
         if (user == null) {
@@ -197,6 +343,10 @@ public class AdminAPI {
         refreshTokenService.deleteByUserId(id);
         // Xóa user
         userRepository.delete(user);
+        // Access token đã cấp hết hiệu lực ngay
+        tokenRevocationService.revoke(id);
+        eventPublisher.publishEvent(UserChangeEvent.deleted(id));
+        auditService.record(AuditLog.Action.USER_DELETED, id, request.getRemoteAddr(), "email=" + user.getEmail());
         return ResponseEntity.ok("User deleted successfully");
     }
 }
\ No newline at end of file
@@ -1,11 +1,22 @@
 package com.example.demo.api;
 
+import com.example.demo.dto.ErrorResponse;
+import com.example.demo.dto.ValidationError;
+import com.example.demo.entity.User;
+import com.example.demo.security.RateLimitExceededException;
+import com.example.demo.service.PasswordHashingOverloadedException;
+import com.example.demo.util.IntegrityViolations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.context.request.WebRequest;
 
+import java.util.List;
+
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
@@ -14,6 +25,47 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>("Internal Server Error: " + ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
+    @ExceptionHandler(PasswordHashingOverloadedException.class)
+    public ResponseEntity<?> handlePasswordHashingOverloadedException(PasswordHashingOverloadedException ex, WebRequest request) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("Lỗi: Hệ thống đang quá tải, vui lòng thử lại sau");
+    }
+
+    // Vượt giới hạn login/register theo IP hoặc email
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<?> handleRateLimitExceededException(RateLimitExceededException ex, WebRequest request) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body("Lỗi: Quá nhiều yêu cầu, vui lòng thử lại sau " + ex.getRetryAfterSeconds() + " giây");
+    }
+
+    // Không lấy được connection trong thời gian chờ (giới hạn JDBC hoặc pool đã cạn)
+    @ExceptionHandler({org.springframework.transaction.CannotCreateTransactionException.class,
+            org.springframework.dao.DataAccessResourceFailureException.class})
+    public ResponseEntity<?> handleConnectionUnavailable(Exception ex, WebRequest request) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("Lỗi: Cơ sở dữ liệu đang quá tải, vui lòng thử lại sau");
+    }
+
+    // Hai request đăng ký cùng email vượt qua bước kiểm tra cùng lúc: uk_users_email chặn bản ghi thứ hai
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<?> handleDataIntegrityViolationException(DataIntegrityViolationException ex, WebRequest request) {
+        if (IntegrityViolations.violates(ex, User.EMAIL_CONSTRAINT)) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(List.of(
+                    new ValidationError("email", "Email đã tồn tại"))));
+        }
+        return ResponseEntity.status(HttpStatus.CONFLICT).body("Lỗi: Dữ liệu vi phạm ràng buộc");
+    }
+
+    // Hai admin cùng sửa một user: bản ghi đến sau mang version cũ
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<?> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex, WebRequest request) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body("Lỗi: Dữ liệu đã bị người khác cập nhật, vui lòng tải lại");
+    }
+
     @ExceptionHandler(org.springframework.dao.InvalidDataAccessResourceUsageException.class)
     public ResponseEntity<?> handleInvalidDataAccessResourceUsageException(
             org.springframework.dao.InvalidDataAccessResourceUsageException ex, WebRequest request) {
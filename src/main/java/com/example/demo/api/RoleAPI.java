@@ -0,0 +1,41 @@
+package com.example.demo.api;
+
+import com.example.demo.dto.RoleDTO;
+import com.example.demo.entity.Role;
+import com.example.demo.security.RoleRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/roles")
+public class RoleAPI {
+
+    @Autowired
+    private RoleRegistry roleRegistry;
+
+    // Danh sách role đang được dùng (từ bộ nhớ, không truy vấn DB)
+    @GetMapping("/get-all")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<RoleDTO>> getAllRoles() {
+        return ResponseEntity.ok(roleRegistry.all().stream().map(this::toDTO).toList());
+    }
+
+    // Nạp lại role từ database sau khi thêm/sửa role
+    @PostMapping("/refresh")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<RoleDTO>> refresh() {
+        roleRegistry.refresh();
+        return getAllRoles();
+    }
+
+    private RoleDTO toDTO(Role role) {
+        RoleDTO roleDTO = new RoleDTO();
+        roleDTO.setId(role.getId());
+        roleDTO.setName(role.getName());
+        return roleDTO;
+    }
+}
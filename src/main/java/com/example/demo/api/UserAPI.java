@@ -2,21 +2,40 @@ package com.example.demo.api;
 
 
 import java.util.List;
-import java.util.ArrayList;
+import com.example.demo.config.ReplicaRoutingDataSource;
 import com.example.demo.dto.ErrorResponse;
 import com.example.demo.dto.ValidationError;
+import com.example.demo.dto.UserChangeEvent;
 import com.example.demo.dto.UserDTO;
+import com.example.demo.entity.AuditLog;
 import com.example.demo.entity.RefreshToken;
 import com.example.demo.entity.Role;
 import com.example.demo.entity.User;
-import com.example.demo.repository.RoleRepository;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.security.AppUserDetails;
+import com.example.demo.security.AuthMetrics;
+import com.example.demo.security.AuthRateLimiter;
+import com.example.demo.security.RateLimitExceededException;
+import com.example.demo.security.RoleRegistry;
+import com.example.demo.service.PasswordHashingOverloadedException;
+import com.example.demo.service.AuditService;
+import com.example.demo.service.EmailExistenceService;
+import com.example.demo.service.LoginService;
 import com.example.demo.service.RefreshTokenService;
+import com.example.demo.service.TokenRevocationService;
+import com.example.demo.util.ETags;
 import com.example.demo.util.JwtUtil;
+import com.example.demo.util.SlugUtil;
+import com.example.demo.util.VerifiedToken;
+import com.example.demo.validation.UserValidator;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -25,9 +44,8 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Random;
+import java.util.Optional;
 import java.util.UUID;
-import java.util.regex.Pattern;
 
 @RestController
 @RequestMapping("/api/users")
@@ -37,7 +55,7 @@ public class UserAPI {
     private UserRepository userRepository;
 
     @Autowired
-    private RoleRepository roleRepository;
+    private RoleRegistry roleRegistry;
 
     @Autowired
     private RefreshTokenService refreshTokenService;
@@ -51,70 +69,40 @@ public class UserAPI {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
-    private static final Pattern  PHONE_PATTERN = Pattern.compile("^(?:\\+84|0)\\d{9,10}$");
-    private static final Pattern FULL_NAME_PATTERN = Pattern.compile("^[A-Za-zÀ-ỹ0-9]+( [A-Za-zÀ-ỹ0-9]+)*$");
-    private static final Pattern EMAIL_PATTERN = Pattern.compile("^[\\w-\\.]+@([\\w-]+\\.)+[\\w-]{2,4}$");
-
+    @Autowired
+    private UserValidator userValidator;
 
+    @Autowired
+    private EmailExistenceService emailExistenceService;
 
-    //kiem tra xem trong full name co chua icon dac biet khong
+    @Autowired
+    private AuthMetrics authMetrics;
 
-    private boolean containsEmoji(String text) {
-        for (int i = 0; i < text.length(); i++) {
-            int codePoint = text.codePointAt(i);
-            if ((codePoint >= 0x1F600 && codePoint <= 0x1F64F) || // Emoticons
-                    (codePoint >= 0x1F300 && codePoint <= 0x1F5FF) || // Misc Symbols and Pictographs
-                    (codePoint >= 0x1F680 && codePoint <= 0x1F6FF) || // Transport and Map Symbols
-                    (codePoint >= 0x1F1E6 && codePoint <= 0x1F1FF)) { // Flags
-                return true;
-            }
-        }
-        return false;
-    }
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
 
+    @Autowired
+    private LoginService loginService;
 
+    @Autowired
+    private AuthRateLimiter authRateLimiter;
 
-    @PostMapping("/register")
-    public ResponseEntity<?> register(@RequestBody UserDTO userDTO) {
-        List<ValidationError> errors = new ArrayList<>();
+    @Autowired
+    private AuditService auditService;
 
-        //kiem tra email
-        if (userDTO.getEmail() == null || userDTO.getEmail().isEmpty()) {
-            errors.add(new ValidationError("email", "Email không được để trống"));
-        } else {
-            if (userDTO.getEmail().contains(" ")) {
-                errors.add(new ValidationError("email", "Email không được chứa khoảng trắng"));
-            } else if (!EMAIL_PATTERN.matcher(userDTO.getEmail()).matches()) {
-                errors.add(new ValidationError("email", "Email không hợp lệ"));
-            } else if (userRepository.findByEmail(userDTO.getEmail()) != null) {
-                errors.add(new ValidationError("email", "Email đã tồn tại"));
-            }
-        }
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
-        // kiem tra full name
-        if (userDTO.getFull_name() == null || userDTO.getFull_name().isEmpty()) {
-            errors.add(new ValidationError("full_name", "Tên không được để trống"));
-        } else {
-            String trimmedName = userDTO.getFull_name().trim();
-            if (!trimmedName.equals(userDTO.getFull_name())) {
-                errors.add(new ValidationError("full_name", "Tên không được chứa khoảng trắng ở đầu hoặc cuối"));
-            } else if (!FULL_NAME_PATTERN.matcher(userDTO.getFull_name()).matches()) {
-                errors.add(new ValidationError("full_name", "Tên chỉ được chứa chữ cái, số và khoảng trắng giữa các từ"));
-            } else if (containsEmoji(userDTO.getFull_name())) {
-                errors.add(new ValidationError("full_name", "Tên không được chứa icon hoặc emoji"));
-            }
-        }
+    @PostMapping("/register")
+    public ResponseEntity<?> register(@RequestBody UserDTO userDTO, HttpServletRequest request) {
+        // Giới hạn trước khi validate/băm mật khẩu
+        authRateLimiter.checkRegister(request.getRemoteAddr());
 
-        //kiem tra sdt
-        if (userDTO.getPhone() == null || userDTO.getPhone().isEmpty()) {
-            errors.add(new ValidationError("phone", "Số điện thoại không được để trống"));
-        } else if (!PHONE_PATTERN.matcher(userDTO.getPhone()).matches()) {
-            errors.add(new ValidationError("phone", "Số điện thoại không hợp lệ. Phải bắt đầu bằng +84 hoặc 0, theo sau là 9 hoặc 10 chữ số"));
-        }
+        List<ValidationError> errors = userValidator.validateRegistration(userDTO);
 
-        //kiem tra pass
-        if (userDTO.getPassword() == null || userDTO.getPassword().isEmpty()) {
-            errors.add(new ValidationError("password", "Mật khẩu không được để trống"));
+        // Chỉ kiểm tra trùng email khi email đúng định dạng
+        if (!UserValidator.hasError(errors, "email") && emailExistenceService.exists(userDTO.getEmail())) {
+            errors = UserValidator.withError(errors, 0, new ValidationError("email", "Email đã tồn tại"));
         }
 
         //response lỗi
@@ -129,11 +117,7 @@ public class UserAPI {
         user.setFull_name(userDTO.getFull_name());
 
         // slug
-        String baseSlug = userDTO.getFull_name().toLowerCase().replace(" ", "-");
-        Random random = new Random();
-        int randomNumber = random.nextInt(1000);
-        String formattedNumber = String.format("%03d", randomNumber);
-        user.setSlug(baseSlug + "-" + formattedNumber);
+        user.setSlug(SlugUtil.generate(userDTO.getFull_name()));
 
         user.setPhone(userDTO.getPhone());
 
@@ -141,84 +125,116 @@ public class UserAPI {
         UUID roleId = userDTO.getRole_id();
         Role role;
         if (roleId != null) {
-            role = roleRepository.findById(roleId)
-                    .orElse(null);
+            role = roleRegistry.findById(roleId);
             if (role == null) {
-                errors.add(new ValidationError("role_id", "Role với ID " + roleId + " không tồn tại"));
-                return ResponseEntity.badRequest().body(new ErrorResponse(errors));
+                return ResponseEntity.badRequest().body(new ErrorResponse(List.of(
+                        new ValidationError("role_id", "Role với ID " + roleId + " không tồn tại"))));
             }
         } else {
-            role = roleRepository.findByName("customer")
-                    .orElseGet(() -> {
-                        Role defaultRole = new Role();
-                        defaultRole.setId(UUID.randomUUID());
-                        defaultRole.setName("customer");
-                        defaultRole.setDescription("Khách hàng mặc định");
-                        return roleRepository.save(defaultRole);
-                    });
+            role = roleRegistry.defaultRole();
         }
         user.setRole(role);
 
-        //Lưu user vào db
+        //Lưu user vào db (trùng email do đăng ký song song sẽ bị uk_users_email chặn)
+        emailExistenceService.record(user.getEmail());
         userRepository.save(user);
+        eventPublisher.publishEvent(UserChangeEvent.created(user));
+        auditService.record(AuditLog.Action.REGISTER, user.getEmail(), user.getId(), request.getRemoteAddr(), null);
         return ResponseEntity.ok("User registered successfully");
     }
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody UserDTO loginRequest) {
+    public ResponseEntity<?> login(@RequestBody UserDTO loginRequest, HttpServletRequest request) {
         String email = loginRequest.getEmail();
         String password = loginRequest.getPassword();
 
+        // Giới hạn theo IP và email trước khi BCrypt chạy
+        try {
+            authRateLimiter.checkLogin(request.getRemoteAddr(), email);
+        } catch (RateLimitExceededException e) {
+            authMetrics.failure(AuthMetrics.FLOW_LOGIN, "rate_limited");
+            throw e;
+        }
+
         if (email == null || email.isEmpty()) {
+            authMetrics.failure(AuthMetrics.FLOW_LOGIN, "invalid_request");
             return ResponseEntity.badRequest().body("Lỗi: Email không được để trống");
         }
         if (password == null || password.isEmpty()) {
+            authMetrics.failure(AuthMetrics.FLOW_LOGIN, "invalid_request");
             return ResponseEntity.badRequest().body("Lỗi: Mật khẩu không được để trống");
         }
 
+        // Đo từng bước: BCrypt + nạp user, ký JWT, xoay refresh token (hai bước sau trong LoginService)
+        long started = authMetrics.start();
+        AppUserDetails principal;
         try {
             Authentication authentication = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(email, password));
             SecurityContextHolder.getContext().setAuthentication(authentication);
+            principal = (AppUserDetails) authentication.getPrincipal();
+        } catch (PasswordHashingOverloadedException e) {
+            authMetrics.failure(AuthMetrics.FLOW_LOGIN, "overloaded");
+            throw e;
         } catch (Exception e) {
+            // Lỗi khi nạp user (kể cả băm giả chống timing attack) bị bọc trong InternalAuthenticationServiceException
+            if (e.getCause() instanceof PasswordHashingOverloadedException overloaded) {
+                authMetrics.failure(AuthMetrics.FLOW_LOGIN, "overloaded");
+                throw overloaded;
+            }
+            String cause = e instanceof BadCredentialsException ? "bad_credentials" : "error";
+            authMetrics.failure(AuthMetrics.FLOW_LOGIN, cause);
+            auditService.record(AuditLog.Action.LOGIN_FAILED, email, null, request.getRemoteAddr(), cause);
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Lỗi: Email hoặc mật khẩu không đúng");
+        } finally {
+            authMetrics.stop(AuthMetrics.Stage.LOGIN_AUTHENTICATE, started);
         }
 
-        User user = userRepository.findByEmail(email);
-        String accessToken = jwtUtil.generateAccessToken(email);
-        String refreshToken = jwtUtil.generateRefreshToken(email);
-
-        // Lưu refresh token vào cơ sở dữ liệu
-        refreshTokenService.deleteByUserId(user.getId());
-        RefreshToken refreshTokenEntity = refreshTokenService.createRefreshToken(user.getId());
-        refreshToken = refreshTokenEntity.getToken();
+        // Principal đã có id, họ tên và quyền: không nạp lại user
+        LoginService.LoginResult result = loginService.login(principal);
+        auditService.record(AuditLog.Action.LOGIN, principal.getUsername(), principal.getId(), request.getRemoteAddr(), null);
 
         Map<String, String> response = new HashMap<>();
-        response.put("accessToken", accessToken);
-        response.put("refreshToken", refreshToken);
-        response.put("email", email);
-        response.put("message", "Đăng nhập thành công. Chào mừng " + user.getFull_name());
+        response.put("accessToken", result.getAccessToken());
+        response.put("refreshToken", result.getRefreshToken());
+        response.put("email", principal.getUsername());
+        response.put("message", "Đăng nhập thành công. Chào mừng " + principal.getFullName());
 
         return ResponseEntity.ok(response);
     }
 
     @PostMapping("/refresh-token")
-    public ResponseEntity<?> refreshToken(@RequestBody Map<String, String> request) {
+    public ResponseEntity<?> refreshToken(@RequestBody Map<String, String> request, HttpServletRequest httpRequest) {
         String refreshToken = request.get("refreshToken");
 
         if (refreshToken == null || refreshToken.isEmpty()) {
+            authMetrics.failure(AuthMetrics.FLOW_REFRESH, "invalid_request");
             Map<String, String> errorResponse = new HashMap<>();
             errorResponse.put("error", "Lỗi: Refresh token không được để trống");
             return ResponseEntity.badRequest().body(errorResponse);
         }
 
-        return refreshTokenService.findByToken(refreshToken)
-                .map(refreshTokenService::verifyExpiration)
+        long started = authMetrics.start();
+        Optional<RefreshToken> stored = refreshTokenService.findByToken(refreshToken);
+        long lookedUp = authMetrics.stop(AuthMetrics.Stage.REFRESH_LOOKUP, started);
+        return stored
+                .map(token -> {
+                    try {
+                        return refreshTokenService.verifyExpiration(token);
+                    } catch (RuntimeException e) {
+                        authMetrics.failure(AuthMetrics.FLOW_REFRESH, "expired");
+                        throw e;
+                    }
+                })
                 .map(RefreshToken::getUserId)
                 .map(userId -> {
-                    User user = userRepository.findById(userId)
+                    // Quyền trong access token mới phải theo dữ liệu mới nhất (user vừa bị đổi role/xóa)
+                    User user = ReplicaRoutingDataSource.onPrimary(() -> userRepository.findById(userId))
                             .orElseThrow(() -> new RuntimeException("Người dùng không tồn tại"));
-                    String newAccessToken = jwtUtil.generateAccessToken(user.getEmail());
+                    long loaded = authMetrics.stop(AuthMetrics.Stage.REFRESH_LOAD_USER, lookedUp);
+                    String newAccessToken = jwtUtil.generateAccessToken(user);
+                    authMetrics.stop(AuthMetrics.Stage.REFRESH_SIGN_TOKEN, loaded);
+                    auditService.record(AuditLog.Action.REFRESH, user.getEmail(), user.getId(), httpRequest.getRemoteAddr(), null);
 
                     Map<String, String> response = new HashMap<>();
                     response.put("accessToken", newAccessToken);
@@ -226,30 +242,52 @@ public class UserAPI {
                     return ResponseEntity.ok(response);
                 })
                 .orElseGet(() -> {
+                    authMetrics.failure(AuthMetrics.FLOW_REFRESH, "invalid_token");
                     Map<String, String> error = new HashMap<>();
                     error.put("error", "Lỗi: Refresh token không hợp lệ");
                     return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
                 });
     }
 
+    // Đăng xuất: thu hồi mọi access token đang có của user và xóa refresh token
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization,
+                                    HttpServletRequest request) {
+        VerifiedToken token = jwtUtil.verify(authorization.substring("Bearer ".length()));
+        if (token.getUserId() == null) {
+            return ResponseEntity.badRequest().body("Lỗi: Token không hợp lệ");
+        }
+        tokenRevocationService.revoke(token.getUserId());
+        refreshTokenService.deleteByUserId(token.getUserId());
+        auditService.record(AuditLog.Action.LOGOUT, token.getSubject(), token.getUserId(), request.getRemoteAddr(), null);
+        SecurityContextHolder.clearContext();
+        return ResponseEntity.ok("Đăng xuất thành công");
+    }
+
     @GetMapping("/get-by-email/{email}")
-    public ResponseEntity<?> getUserByEmail(@PathVariable String email) {
+    public ResponseEntity<?> getUserByEmail(@PathVariable String email,
+                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         if (email == null || email.isEmpty()) {
             return ResponseEntity.badRequest().body("Lỗi: Email không được để trống");
         }
 
-        User user = userRepository.findByEmail(email);
-        if (user == null) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Lỗi: Người dùng với email " + email + " không tồn tại");
+        // Client đã có bản mới nhất: chỉ hỏi id + version rồi trả 304
+        if (ifNoneMatch != null) {
+            String etag = userRepository.findVersionByEmail(email)
+                    .map(v -> ETags.of(v.getId(), v.getVersion()))
+                    .orElse(null);
+            if (etag != null && ETags.noneMatchHits(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
         }
 
-        UserDTO userDTO = new UserDTO();
-        userDTO.setId(user.getId());
-        userDTO.setEmail(user.getEmail());
-        // Không trả về mật khẩu để bảo mật
-        userDTO.setFull_name(user.getFull_name());
-        userDTO.setRole_id(user.getRole() != null ? user.getRole().getId() : null);
+        // Projection không chứa mật khẩu
+        UserDTO userDTO = userRepository.findDtoByEmail(email)
+                .orElse(null);
+        if (userDTO == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Lỗi: Người dùng với email " + email + " không tồn tại");
+        }
 
-        return ResponseEntity.ok(userDTO);
+        return ResponseEntity.ok().eTag(ETags.of(userDTO.getId(), userDTO.getVersion())).body(userDTO);
     }
 }
\ No newline at end of file
@@ -0,0 +1,253 @@
+package com.example.demo.api;
+
+import com.example.demo.dto.UserChangeEvent;
+import com.example.demo.dto.UsersImportedEvent;
+import com.example.demo.security.JwtHandshakeInterceptor;
+import com.example.demo.service.TokenRevocationService;
+import com.example.demo.util.VerifiedToken;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// /ws/admin/users: đẩy thay đổi user (tạo/sửa/xóa) tới dashboard admin thay cho việc poll get-all.
+// Mỗi session có hàng đợi gửi riêng, giới hạn theo số tin (send-queue-capacity) và số byte (buffer-size-limit),
+// và tối đa một lượt gửi đang chạy. Client chậm chỉ làm đầy hàng đợi của chính nó rồi bị ngắt; lượt gửi bị treo
+// quá send-time-limit bị watchdog đóng session. Việc gửi không bao giờ chạy trên thread của request đăng ký/admin,
+// và một session treo chỉ giữ một luồng gửi của nó, không chặn session khác.
+@Component
+public class UserDirectoryWebSocketHandler extends TextWebSocketHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(UserDirectoryWebSocketHandler.class);
+
+    @Value("${websocket.admin-users.send-time-limit-ms:5000}")
+    private long sendTimeLimitMs;
+
+    @Value("${websocket.admin-users.buffer-size-limit:524288}")
+    private long bufferSizeLimit;
+
+    // Số tin chờ gửi tối đa của một session, đầy thì session đó bị ngắt để client kết nối lại và tải lại
+    @Value("${websocket.admin-users.send-queue-capacity:1000}")
+    private int sendQueueCapacity;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, Outbox> sessions = new ConcurrentHashMap<>();
+
+    // Luồng gửi tạo theo nhu cầu: mỗi session dùng nhiều nhất một luồng tại một thời điểm
+    private ExecutorService senders;
+
+    private Counter slowConsumerDisconnects;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        senders = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "ws-admin-users-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("websocket.admin-users.sessions", sessions, Map::size).register(meterRegistry);
+        Gauge.builder("websocket.admin-users.send.queue.depth", sessions,
+                        outboxes -> outboxes.values().stream().mapToInt(outbox -> outbox.queuedMessages.get()).sum())
+                .register(meterRegistry);
+        slowConsumerDisconnects = Counter.builder("websocket.admin-users.disconnects")
+                .tag("reason", "slow_consumer").register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        sessions.put(session.getId(), new Outbox(session));
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        sessions.remove(session.getId());
+    }
+
+    // Kênh một chiều: bỏ qua tin nhắn từ client
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+    }
+
+    // Chỉ đẩy sau khi transaction ghi đã commit (không có transaction thì đẩy ngay), rồi giao cho luồng gửi
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChange(UserChangeEvent event) {
+        broadcast(event);
+    }
+
+    // Import: một tin cho cả lô, dashboard tự tải lại danh sách
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUsersImported(UsersImportedEvent event) {
+        broadcast(event);
+    }
+
+    private void broadcast(Object event) {
+        if (sessions.isEmpty()) {
+            return;
+        }
+        TextMessage message;
+        try {
+            // Serialize một lần cho mọi session
+            message = new TextMessage(objectMapper.writeValueAsString(event));
+        } catch (JsonProcessingException e) {
+            log.error("Không serialize được {}", event.getClass().getSimpleName(), e);
+            return;
+        }
+        for (Outbox outbox : sessions.values()) {
+            outbox.enqueue(message);
+        }
+    }
+
+    // Lượt gửi treo quá send-time-limit (client không đọc, TCP window đầy): đóng session, việc đóng cũng giải phóng
+    // luồng đang kẹt trong lượt gửi
+    @Scheduled(fixedDelayString = "${websocket.admin-users.watchdog-interval-ms:1000}")
+    public void closeStalledSessions() {
+        long now = System.nanoTime();
+        long limit = TimeUnit.MILLISECONDS.toNanos(sendTimeLimitMs);
+        for (Outbox outbox : sessions.values()) {
+            long since = outbox.sendingSince;
+            if (since != 0 && now - since > limit) {
+                disconnectSlow(outbox, "gửi quá " + sendTimeLimitMs + " ms");
+            }
+        }
+    }
+
+    private void disconnectSlow(Outbox outbox, String reason) {
+        if (sessions.remove(outbox.session.getId(), outbox)) {
+            slowConsumerDisconnects.increment();
+            log.info("Ngắt WebSocket {} vì client nhận chậm: {}", outbox.session.getId(), reason);
+            // Đóng trên luồng khác: close có thể chờ lượt gửi đang kẹt
+            senders.execute(() -> close(outbox.session, CloseStatus.SERVICE_OVERLOAD));
+        }
+    }
+
+    private void close(WebSocketSession session, CloseStatus status) {
+        sessions.remove(session.getId());
+        try {
+            session.close(status);
+        } catch (IOException e) {
+            log.debug("Lỗi khi đóng WebSocket {}", session.getId(), e);
+        }
+    }
+
+    private final class Outbox {
+        private final WebSocketSession session;
+        private final Queue<TextMessage> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queuedMessages = new AtomicInteger();
+        private final AtomicLong queuedBytes = new AtomicLong();
+        // Đã có một lượt drain được giao cho luồng gửi
+        private final AtomicBoolean draining = new AtomicBoolean();
+        // System.nanoTime() lúc bắt đầu lượt sendMessage đang chạy, 0 khi rảnh
+        private volatile long sendingSince;
+
+        private Outbox(WebSocketSession session) {
+            this.session = session;
+        }
+
+        private void enqueue(TextMessage message) {
+            if (queuedMessages.incrementAndGet() > sendQueueCapacity
+                    || queuedBytes.addAndGet(message.getPayloadLength()) > bufferSizeLimit) {
+                disconnectSlow(this, queuedMessages.get() + " tin / " + queuedBytes.get() + " byte chờ gửi");
+                return;
+            }
+            queue.add(message);
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // Đang tắt ứng dụng
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                TextMessage message = queue.poll();
+                if (message == null) {
+                    draining.set(false);
+                    // Tin vừa được thêm sau poll nhưng trước khi bỏ cờ: tự drain tiếp
+                    if (queue.isEmpty() || !draining.compareAndSet(false, true)) {
+                        return;
+                    }
+                    continue;
+                }
+                queuedMessages.decrementAndGet();
+                queuedBytes.addAndGet(-message.getPayloadLength());
+                if (sessions.get(session.getId()) != this || !send(message)) {
+                    queue.clear();
+                    return;
+                }
+            }
+        }
+
+        // false nếu session đã bị đóng
+        private boolean send(TextMessage message) {
+            // Token hết hạn hoặc bị thu hồi (admin bị xóa, đổi role/mật khẩu, logout) thì đóng session,
+            // admin phải kết nối lại bằng token mới
+            VerifiedToken token = (VerifiedToken) session.getAttributes().get(JwtHandshakeInterceptor.ATTR_TOKEN);
+            if (token != null && token.isExpired()) {
+                close(session, CloseStatus.POLICY_VIOLATION.withReason("Token expired"));
+                return false;
+            }
+            if (token != null && tokenRevocationService.isRevoked(token.getUserId(), token.getIssuedAt())) {
+                close(session, CloseStatus.POLICY_VIOLATION.withReason("Token revoked"));
+                return false;
+            }
+            sendingSince = System.nanoTime();
+            try {
+                session.sendMessage(message);
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                // Session bị watchdog đóng trong lúc gửi cũng rơi vào đây
+                if (sessions.containsKey(session.getId())) {
+                    close(session, CloseStatus.SERVER_ERROR);
+                }
+                return false;
+            } finally {
+                sendingSince = 0;
+            }
+        }
+    }
+}
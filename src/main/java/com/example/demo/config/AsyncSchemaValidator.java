@@ -0,0 +1,53 @@
+package com.example.demo.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+// Kiểm tra schema database khớp với entity, chạy nền sau khi ứng dụng đã sẵn sàng thay vì ddl-auto lúc khởi động.
+// Kết quả ở /actuator/health (schema): lệch schema thì DOWN kèm lỗi, để lần triển khai hỏng bị phát hiện
+@Component("schema")
+@ConditionalOnProperty(name = "app.schema.validate-async", havingValue = "true")
+public class AsyncSchemaValidator implements HealthIndicator {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncSchemaValidator.class);
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    // null: đang kiểm tra
+    private volatile Health result;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread thread = new Thread(this::validate, "schema-validator");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void validate() {
+        long started = System.nanoTime();
+        try {
+            entityManagerFactory.unwrap(SessionFactory.class).getSchemaManager().validateMappedObjects();
+            result = Health.up().build();
+            log.info("Schema khớp với entity (kiểm tra trong {} ms)", (System.nanoTime() - started) / 1_000_000);
+        } catch (RuntimeException e) {
+            result = Health.down().withDetail("error", String.valueOf(e.getMessage())).build();
+            log.error("Schema database không khớp với entity: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public Health health() {
+        Health current = result;
+        return current != null ? current : Health.unknown().withDetail("state", "validating").build();
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.demo.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Giới hạn số connection JDBC được mượn đồng thời bằng một semaphore công bằng,
+// để hàng nghìn virtual thread xếp hàng ở đây thay vì dồn vào pool và PostgreSQL
+public class ConcurrencyLimitingDataSource extends DelegatingDataSource {
+
+    private final Semaphore permits;
+    private final int maxConcurrency;
+    private final long acquireTimeoutMillis;
+
+    public ConcurrencyLimitingDataSource(DataSource target, int maxConcurrency, long acquireTimeoutMillis) {
+        super(target);
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.maxConcurrency = maxConcurrency;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return limited(super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return limited(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public int getInUse() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    public int getWaiting() {
+        return permits.getQueueLength();
+    }
+
+    private void acquire() throws SQLException {
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException(
+                        "Không lấy được connection sau " + acquireTimeoutMillis + "ms (giới hạn " + maxConcurrency + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Bị ngắt khi chờ connection", e);
+        }
+    }
+
+    // Trả permit đúng một lần khi connection được close
+    private Connection limited(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean();
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getName().equals("close") && released.compareAndSet(false, true)) {
+                try {
+                    return invoke(connection, method, args);
+                } finally {
+                    permits.release();
+                }
+            }
+            return invoke(connection, method, args);
+        };
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, handler);
+    }
+
+    private static Object invoke(Connection connection, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(connection, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class JdbcConcurrencyConfig {
+
+    // Bọc bean "dataSource" trong ConcurrencyLimitingDataSource.
+    // app.jdbc.max-concurrency = 0 thì lấy theo kích thước pool Hikari
+    @Bean
+    public static BeanPostProcessor jdbcConcurrencyLimiter(Environment environment,
+                                                           ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!"dataSource".equals(beanName) || !(bean instanceof DataSource dataSource)
+                        || bean instanceof ConcurrencyLimitingDataSource) {
+                    return bean;
+                }
+                int maxConcurrency = environment.getProperty("app.jdbc.max-concurrency", Integer.class, 0);
+                if (maxConcurrency <= 0) {
+                    maxConcurrency = environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10);
+                }
+                long acquireTimeout = environment.getProperty("app.jdbc.acquire-timeout-ms", Long.class, 5000L);
+                ConcurrencyLimitingDataSource limited = new ConcurrencyLimitingDataSource(dataSource, maxConcurrency, acquireTimeout);
+
+                meterRegistry.ifAvailable(registry -> {
+                    Gauge.builder("jdbc.limiter.in-use", limited, ConcurrencyLimitingDataSource::getInUse).register(registry);
+                    Gauge.builder("jdbc.limiter.waiting", limited, ConcurrencyLimitingDataSource::getWaiting).register(registry);
+                    Gauge.builder("jdbc.limiter.max", limited, ConcurrencyLimitingDataSource::getMaxConcurrency).register(registry);
+                });
+                return limited;
+            }
+        };
+    }
+}
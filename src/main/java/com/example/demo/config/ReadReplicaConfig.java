@@ -0,0 +1,90 @@
+package com.example.demo.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+// Bật khi có app.datasource.replica.url: "dataSource" trở thành LazyConnectionDataSourceProxy
+// bọc ReplicaRoutingDataSource (primary từ spring.datasource.*, replica từ app.datasource.replica.*).
+// Bean "dataSource" vẫn được JdbcConcurrencyConfig bọc giới hạn concurrency như trước.
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replica.url")
+public class ReadReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties properties,
+                                              @Value("${app.datasource.replica.url}") String url,
+                                              @Value("${app.datasource.replica.username:}") String username,
+                                              @Value("${app.datasource.replica.password:}") String password) {
+        // Không khai báo username/password riêng thì dùng chung với primary
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(url)
+                .username(username.isEmpty() ? properties.determineUsername() : username)
+                .password(password.isEmpty() ? properties.determinePassword() : password)
+                .build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            @Qualifier("primaryDataSource") DataSource primary,
+            @Qualifier("replicaDataSource") DataSource replica,
+            @Value("${app.datasource.replica.sticky-window-ms:2000}") long stickyWindowMs,
+            @Value("${app.datasource.replica.max-sticky-users:100000}") long maxStickyUsers,
+            @Value("${app.datasource.replica.health-check-timeout-s:2}") int healthCheckTimeoutSeconds,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replica,
+                Duration.ofMillis(stickyWindowMs), maxStickyUsers, healthCheckTimeoutSeconds);
+        meterRegistry.ifAvailable(registry -> {
+            Gauge.builder("jdbc.replica.healthy", routing, r -> r.isReplicaHealthy() ? 1 : 0).register(registry);
+            FunctionCounter.builder("jdbc.routing.connections", routing, ReplicaRoutingDataSource::getPrimaryConnections)
+                    .tag("target", "primary").register(registry);
+            FunctionCounter.builder("jdbc.routing.connections", routing, ReplicaRoutingDataSource::getReplicaConnections)
+                    .tag("target", "replica").register(registry);
+        });
+        return routing;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    // Mặc định Spring giữ connection suốt session (cả request khi open-in-view), khiến transaction đầu tiên
+    // quyết định primary/replica cho mọi transaction sau. Trả connection sau mỗi transaction để mỗi cái được định tuyến riêng.
+    @Bean
+    public HibernatePropertiesCustomizer releaseConnectionAfterTransaction() {
+        return properties -> properties.put("hibernate.connection.handling_mode",
+                "DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION");
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.demo.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Transaction readOnly -> replica, còn lại -> primary. Phải nằm sau LazyConnectionDataSourceProxy
+// để connection thật chỉ được lấy khi cờ readOnly của transaction đã được đặt.
+// User vừa ghi được đọc từ primary trong một khoảng ngắn (read-your-writes, tránh độ trễ replication);
+// replica lỗi thì mọi truy vấn về primary cho đến khi health check thấy replica sống lại.
+// Sticky theo principal nên request anonymous không được read-your-writes: các lần đọc phục vụ xác thực và đăng ký
+// (login, refresh-token, kiểm tra email đã tồn tại, role, mốc thu hồi token) luôn đi primary qua onPrimary().
+// Có thể thấy dữ liệu cũ tới cỡ độ trễ replication: GET /api/users/get-by-email, GET /api/admin/users/get-all và
+// get-by-id khi người đọc không phải người vừa ghi (admin khác, hoặc user đọc bản ghi admin vừa sửa).
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route { PRIMARY, REPLICA }
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    // Đặt bởi onPrimary(): các lần đọc trong đó luôn đi primary
+    private static final ThreadLocal<Boolean> FORCE_PRIMARY = new ThreadLocal<>();
+
+    // Khóa resource của transaction: đã đăng ký đánh dấu sticky cho transaction hiện tại
+    private static final Object STICKY_REGISTERED = new Object();
+
+    private final DataSource primary;
+    private final DataSource replica;
+    // User (tên principal) -> đã ghi gần đây; tự hết hạn sau cửa sổ sticky
+    private final Cache<String, Boolean> recentWriters;
+
+    private final int healthCheckTimeoutSeconds;
+
+    private volatile boolean replicaHealthy = true;
+
+    private final AtomicLong primaryConnections = new AtomicLong();
+    private final AtomicLong replicaConnections = new AtomicLong();
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, Duration stickyWindow, long maxStickyUsers,
+                                    int healthCheckTimeoutSeconds) {
+        this.primary = primary;
+        this.healthCheckTimeoutSeconds = healthCheckTimeoutSeconds;
+        this.replica = replica;
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(stickyWindow)
+                .maximumSize(maxStickyUsers)
+                .build();
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    // Đọc trạng thái dùng chung của hệ thống (role, mốc thu hồi token) ngay sau khi ghi/đồng bộ giữa các node:
+    // không chấp nhận độ trễ replication. Không bật replica thì không có tác dụng gì.
+    public static <T> T onPrimary(Supplier<T> work) {
+        Boolean previous = FORCE_PRIMARY.get();
+        FORCE_PRIMARY.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                FORCE_PRIMARY.remove();
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (FORCE_PRIMARY.get() != null) {
+            return Route.PRIMARY;
+        }
+        String user = currentUser();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            // Chỉ transaction ghi mới làm user "dính" primary; câu lệnh ngoài transaction vẫn đi primary nhưng không tính
+            if (user != null && TransactionSynchronizationManager.isActualTransactionActive()) {
+                markStickyAfterCommit(user);
+            }
+            return Route.PRIMARY;
+        }
+        if (!replicaHealthy || (user != null && recentWriters.getIfPresent(user) != null)) {
+            return Route.PRIMARY;
+        }
+        return Route.REPLICA;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (determineCurrentLookupKey() == Route.PRIMARY) {
+            primaryConnections.incrementAndGet();
+            return primary.getConnection();
+        }
+        try {
+            Connection connection = replica.getConnection();
+            replicaConnections.incrementAndGet();
+            return connection;
+        } catch (SQLException e) {
+            // Không chờ đến lượt health check kế tiếp: chuyển ngay về primary
+            markReplicaDown(e);
+            primaryConnections.incrementAndGet();
+            return primary.getConnection();
+        }
+    }
+
+    // Đăng nhập bằng tài khoản riêng: không biết tài khoản đó có trên replica không nên luôn đi primary
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        primaryConnections.incrementAndGet();
+        return primary.getConnection(username, password);
+    }
+
+    // Cửa sổ sticky tính từ lúc commit (dữ liệu mới bắt đầu phải replicate), không phải lúc lấy connection;
+    // transaction rollback thì không có gì để đọc lại nên không đánh dấu
+    private void markStickyAfterCommit(String user) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            recentWriters.put(user, Boolean.TRUE);
+            return;
+        }
+        if (TransactionSynchronizationManager.hasResource(STICKY_REGISTERED)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(STICKY_REGISTERED, user);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recentWriters.put(user, Boolean.TRUE);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(STICKY_REGISTERED);
+            }
+        });
+    }
+
+    // Replica trả lời isValid thì cho đọc lại
+    @Scheduled(initialDelayString = "${app.datasource.replica.health-check-interval-ms:5000}",
+            fixedDelayString = "${app.datasource.replica.health-check-interval-ms:5000}")
+    public void checkReplicaHealth() {
+        try (Connection connection = replica.getConnection()) {
+            boolean valid = connection.isValid(healthCheckTimeoutSeconds);
+            if (valid && !replicaHealthy) {
+                log.info("Replica đã sống lại, đọc readOnly trở lại replica");
+            } else if (!valid) {
+                markReplicaDown(null);
+            }
+            replicaHealthy = valid;
+        } catch (SQLException e) {
+            markReplicaDown(e);
+        }
+    }
+
+    private void markReplicaDown(SQLException cause) {
+        if (replicaHealthy) {
+            log.warn("Replica không khả dụng, chuyển mọi truy vấn về primary: {}",
+                    cause != null ? cause.getMessage() : "isValid = false");
+        }
+        replicaHealthy = false;
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+
+    public boolean isReplicaHealthy() {
+        return replicaHealthy;
+    }
+
+    public long getPrimaryConnections() {
+        return primaryConnections.get();
+    }
+
+    public long getReplicaConnections() {
+        return replicaConnections.get();
+    }
+}
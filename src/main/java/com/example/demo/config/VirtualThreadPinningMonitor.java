@@ -0,0 +1,69 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+// Theo dõi sự kiện JFR jdk.VirtualThreadPinned (JDK 21+): log frame đầu tiên thuộc code của ta
+// và đếm theo frame đó, để phát hiện synchronized/native call giữ carrier thread
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+    private static final String APP_PACKAGE = "com.example.demo.";
+
+    @Value("${app.virtual-threads.pinning-threshold-ms:20}")
+    private long thresholdMillis;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private RecordingStream stream;
+
+    @PostConstruct
+    void start() {
+        if (Runtime.version().feature() < 21) {
+            log.warn("spring.threads.virtual.enabled=true nhưng JVM là {}, cần JDK 21+ để dùng virtual thread",
+                    Runtime.version());
+            return;
+        }
+        stream = new RecordingStream();
+        stream.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ofMillis(thresholdMillis)).withStackTrace();
+        stream.onEvent("jdk.VirtualThreadPinned", this::onPinned);
+        stream.startAsync();
+    }
+
+    @PreDestroy
+    void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    private void onPinned(RecordedEvent event) {
+        String frame = "unknown";
+        if (event.getStackTrace() != null) {
+            for (RecordedFrame recordedFrame : event.getStackTrace().getFrames()) {
+                String type = recordedFrame.getMethod().getType().getName();
+                if (type.startsWith(APP_PACKAGE)) {
+                    frame = type + "." + recordedFrame.getMethod().getName();
+                    break;
+                }
+            }
+        }
+        meterRegistry.counter("jvm.virtual.pinned", "frame", frame).increment();
+        log.warn("Virtual thread bị pin {}ms tại {}", event.getDuration().toMillis(), frame);
+    }
+}
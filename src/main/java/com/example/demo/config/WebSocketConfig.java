@@ -0,0 +1,32 @@
+package com.example.demo.config;
+
+import com.example.demo.api.UserDirectoryWebSocketHandler;
+import com.example.demo.security.JwtHandshakeInterceptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+@Configuration
+@EnableWebSocket
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    @Autowired
+    private UserDirectoryWebSocketHandler userDirectoryWebSocketHandler;
+
+    @Autowired
+    private JwtHandshakeInterceptor jwtHandshakeInterceptor;
+
+    // Origin của dashboard admin, phân tách bằng dấu phẩy; mặc định chỉ cùng origin
+    @Value("${websocket.allowed-origins:}")
+    private String[] allowedOrigins;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(userDirectoryWebSocketHandler, "/ws/admin/users")
+                .addInterceptors(jwtHandshakeInterceptor)
+                .setAllowedOrigins(allowedOrigins);
+    }
+}
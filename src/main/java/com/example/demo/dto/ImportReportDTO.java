@@ -0,0 +1,17 @@
+package com.example.demo.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+public class ImportReportDTO {
+    private long totalRows;
+    private long imported;
+    private long failed;
+    // Chỉ giữ tối đa user-import.max-reported-errors lỗi, failed vẫn đếm đủ
+    private List<ImportRowError> errors = new ArrayList<>();
+}
@@ -0,0 +1,17 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+// Lỗi của một dòng trong file import, line tính từ 1 (kể cả dòng header CSV)
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+public class ImportRowError {
+    private long line;
+    private String field;
+    private String message;
+}
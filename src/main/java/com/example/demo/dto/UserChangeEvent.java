@@ -0,0 +1,56 @@
+package com.example.demo.dto;
+
+import com.example.demo.entity.User;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// Thay đổi trong danh bạ user, phát trong ứng dụng (ApplicationEvent) và đẩy nguyên dạng JSON tới dashboard admin
+@Getter
+public class UserChangeEvent {
+
+    public enum Type { CREATED, UPDATED, DELETED }
+
+    private final Type type;
+    private final UUID userId;
+    // null với DELETED
+    private final UserDTO user;
+    private final Long version;
+    private final Instant occurredAt;
+
+    private UserChangeEvent(Type type, UUID userId, UserDTO user, Long version) {
+        this.type = type;
+        this.userId = userId;
+        this.user = user;
+        this.version = version;
+        this.occurredAt = Instant.now();
+    }
+
+    public static UserChangeEvent created(User user) {
+        return new UserChangeEvent(Type.CREATED, user.getId(), toDto(user), user.getVersion());
+    }
+
+    // User tạo bằng import (JDBC batch, không có entity)
+    public static UserChangeEvent created(UserDTO user) {
+        return new UserChangeEvent(Type.CREATED, user.getId(), user, user.getVersion());
+    }
+
+    public static UserChangeEvent updated(User user) {
+        return new UserChangeEvent(Type.UPDATED, user.getId(), toDto(user), user.getVersion());
+    }
+
+    public static UserChangeEvent deleted(UUID userId) {
+        return new UserChangeEvent(Type.DELETED, userId, null, null);
+    }
+
+    // Cùng các trường với projection của get-by-id kèm slug (cho chỉ mục tìm kiếm), không có password
+    private static UserDTO toDto(User user) {
+        UserDTO dto = new UserDTO(user.getId(), user.getEmail(), user.getFull_name(), user.getPhone(),
+                user.getRole() != null ? user.getRole().getId() : null,
+                user.getRole() != null ? user.getRole().getName() : null,
+                user.getVersion());
+        dto.setSlug(user.getSlug());
+        return dto;
+    }
+}
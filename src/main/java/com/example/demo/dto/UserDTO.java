@@ -1,7 +1,11 @@
 package com.example.demo.dto;
 
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
 
@@ -12,6 +16,7 @@ import java.util.UUID;
 @Getter
 @Setter
 @ToString
+@NoArgsConstructor
 
 public class UserDTO {
     private UUID role_id;
@@ -21,4 +26,28 @@ public class UserDTO {
     private String full_name;
     private String roleName;
     private String phone;
+
+    // Chỉ có trong kết quả tìm kiếm / sự kiện thay đổi, không nhận từ request
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private String slug;
+
+    // Version của User, chỉ dùng để dựng ETag, không trả trong body
+    @JsonIgnore
+    private Long version;
+
+    // Dùng cho projection trong JPQL/Criteria, không bao giờ chứa password
+    public UserDTO(UUID id, String email, String full_name, String phone, UUID role_id, String roleName) {
+        this.id = id;
+        this.email = email;
+        this.full_name = full_name;
+        this.phone = phone;
+        this.role_id = role_id;
+        this.roleName = roleName;
+    }
+
+    public UserDTO(UUID id, String email, String full_name, String phone, UUID role_id, String roleName, Long version) {
+        this(id, email, full_name, phone, role_id, roleName);
+        this.version = version;
+    }
 }
@@ -0,0 +1,16 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class UserPageDTO {
+    private List<UserDTO> items;
+    // null khi đã tới trang cuối
+    private String nextCursor;
+}
@@ -0,0 +1,14 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.UUID;
+
+// Projection id + version của User, đủ để so ETag
+@Getter
+@AllArgsConstructor
+public class UserVersion {
+    private UUID id;
+    private Long version;
+}
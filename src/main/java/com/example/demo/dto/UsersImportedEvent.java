@@ -0,0 +1,21 @@
+package com.example.demo.dto;
+
+import lombok.Getter;
+
+import java.time.Instant;
+
+// Một lô import đã được ghi: dashboard admin nhận một tin "IMPORTED" cho cả lô thay vì một UserChangeEvent mỗi dòng
+// và tải lại danh sách
+@Getter
+public class UsersImportedEvent {
+
+    // Cùng trường "type" với UserChangeEvent để client phân biệt loại tin
+    private final String type = "IMPORTED";
+    private final int count;
+    private final Instant occurredAt;
+
+    public UsersImportedEvent(int count) {
+        this.count = count;
+        this.occurredAt = Instant.now();
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// Nhật ký thay đổi tài khoản, login và refresh; chỉ thêm, được ghi theo lô bởi AuditService
+@Entity
+@Table(name = "audit_log", indexes = {
+        @Index(name = "idx_audit_log_target_user_id", columnList = "target_user_id, occurred_at"),
+        @Index(name = "idx_audit_log_occurred_at", columnList = "occurred_at")
+})
+@Getter
+@Setter
+public class AuditLog {
+
+    public enum Action {
+        REGISTER, LOGIN, LOGIN_FAILED, REFRESH, LOGOUT, USER_CREATED, USER_UPDATED, USER_DELETED, USER_IMPORTED
+    }
+
+    @Id
+    @Column(name = "id")
+    private UUID id;
+
+    @Column(name = "occurred_at", nullable = false)
+    private Instant occurredAt;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "action", nullable = false, length = 32)
+    private Action action;
+
+    // Email của người thực hiện (admin, hoặc chính user khi login); null nếu không xác định
+    @Column(name = "actor")
+    private String actor;
+
+    @Column(name = "target_user_id")
+    private UUID targetUserId;
+
+    @Column(name = "client_ip", length = 45)
+    private String clientIp;
+
+    @Column(name = "detail")
+    private String detail;
+}
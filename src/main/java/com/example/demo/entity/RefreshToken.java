@@ -8,7 +8,11 @@ import java.time.Instant;
 import java.util.UUID;
 
 @Entity
-@Table(name = "refresh_tokens")
+@Table(name = "refresh_tokens", indexes = {
+        @Index(name = "uk_refresh_tokens_token_hash", columnList = "token_hash", unique = true),
+        @Index(name = "uk_refresh_tokens_user_id", columnList = "user_id", unique = true),
+        @Index(name = "idx_refresh_tokens_expiry_date", columnList = "expiry_date")
+})
 @Getter
 @Setter
 public class RefreshToken {
@@ -19,9 +23,10 @@ public class RefreshToken {
     @Column(name = "user_id")
     private UUID userId;
 
-    @Column(name = "token")
-    private String token;
+    // SHA-256 (hex) của refresh token, token gốc chỉ được trả cho client
+    @Column(name = "token_hash", length = 64)
+    private String tokenHash;
 
     @Column(name = "expiry_date")
     private Instant expiryDate;
-}
\ No newline at end of file
+}
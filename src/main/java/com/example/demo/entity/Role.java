@@ -3,11 +3,16 @@ package com.example.demo.entity;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.UUID;
 
 @Entity
-@Table(name = "roles")
+@Table(name = "roles", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_roles_name", columnNames = "name")
+})
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "roles")
 @Getter
 @Setter
 public class Role {
@@ -0,0 +1,24 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// Mốc thu hồi token của một user: access token có iat trước revoked_before bị từ chối
+@Entity
+@Table(name = "token_revocations", indexes = {
+        @Index(name = "idx_token_revocations_revoked_before", columnList = "revoked_before")
+})
+@Getter
+@Setter
+public class TokenRevocation {
+    @Id
+    @Column(name = "user_id")
+    private UUID userId;
+
+    @Column(name = "revoked_before", nullable = false)
+    private Instant revokedBefore;
+}
@@ -3,18 +3,34 @@ package com.example.demo.entity;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import java.util.UUID;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", uniqueConstraints = {
+        @UniqueConstraint(name = User.EMAIL_CONSTRAINT, columnNames = "email")
+}, indexes = {
+        @Index(name = "idx_users_full_name_id", columnList = "full_name, id"),
+        @Index(name = "idx_users_role_id", columnList = "role_id")
+})
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
+@NaturalIdCache(region = "users-by-email")
 @Getter
 @Setter
 public class User {
+    public static final String EMAIL_CONSTRAINT = "uk_users_email";
+
     @Id
     @Column(name = "id")
     private UUID id;
 
+    // Khóa tự nhiên: tra theo email đi qua natural-id cache rồi entity cache, admin được đổi email
+    @NaturalId(mutable = true)
     @Column(name = "email")
     private String email;
 
@@ -46,4 +62,10 @@ public class User {
     @ManyToOne
     @JoinColumn(name = "role_id")
     private Role role;
+
+    // Optimistic locking và ETag; null với user mới nên save() persist thẳng, không select trước như merge
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
 }
\ No newline at end of file
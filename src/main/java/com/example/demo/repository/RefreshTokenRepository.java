@@ -1,12 +1,50 @@
 package com.example.demo.repository;
 
 import com.example.demo.entity.RefreshToken;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID> {
-    Optional<RefreshToken> findByToken(String token);
-    void deleteByUserId(UUID userId);
-}
\ No newline at end of file
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    // Xóa bằng một câu lệnh, không nạp entity rồi xóa từng dòng như derived delete
+    @Transactional
+    @Modifying
+    @Query("delete from RefreshToken t where t.userId = :userId")
+    int deleteByUserId(@Param("userId") UUID userId);
+
+    // Xoay refresh token của user: cập nhật dòng sẵn có (mỗi user một dòng, uk_refresh_tokens_user_id).
+    // Câu native phải khai báo bảng bị ghi, không thì Hibernate xóa toàn bộ second-level cache (cả users) mỗi lần login
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "refresh_tokens"))
+    @Query(value = "update refresh_tokens set token_hash = :tokenHash, expiry_date = :expiryDate "
+            + "where user_id = :userId", nativeQuery = true)
+    int rotate(@Param("userId") UUID userId, @Param("tokenHash") String tokenHash,
+               @Param("expiryDate") Instant expiryDate);
+
+    // Lần đăng nhập đầu: chèn mới; login song song đã chèn trước thì không làm gì (trả về 0)
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "refresh_tokens"))
+    @Query(value = "insert into refresh_tokens (id, user_id, token_hash, expiry_date) "
+            + "values (:id, :userId, :tokenHash, :expiryDate) on conflict do nothing", nativeQuery = true)
+    int insertIfAbsent(@Param("id") UUID id, @Param("userId") UUID userId, @Param("tokenHash") String tokenHash,
+                       @Param("expiryDate") Instant expiryDate);
+
+    // Xóa tối đa batchSize token hết hạn, mỗi lần gọi là một transaction ngắn
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "refresh_tokens"))
+    @Query(value = "delete from refresh_tokens where id in "
+            + "(select id from refresh_tokens where expiry_date < :now limit :batchSize)", nativeQuery = true)
+    int deleteExpiredBatch(@Param("now") Instant now, @Param("batchSize") int batchSize);
+}
@@ -0,0 +1,42 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.TokenRevocation;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+public interface TokenRevocationRepository extends JpaRepository<TokenRevocation, UUID> {
+    // Các mốc còn có tác dụng (mới hơn thời hạn access token) hoặc thay đổi từ lần đồng bộ trước
+    List<TokenRevocation> findByRevokedBeforeAfter(Instant after);
+
+    // Chỉ tiến mốc về phía sau, hai node cùng thu hồi thì giữ mốc lớn hơn.
+    // Câu native khai báo bảng bị ghi để Hibernate không xóa toàn bộ second-level cache
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "token_revocations"))
+    @Query(value = "update token_revocations set revoked_before = greatest(revoked_before, :revokedBefore) "
+            + "where user_id = :userId", nativeQuery = true)
+    int advance(@Param("userId") UUID userId, @Param("revokedBefore") Instant revokedBefore);
+
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "token_revocations"))
+    @Query(value = "insert into token_revocations (user_id, revoked_before) values (:userId, :revokedBefore)",
+            nativeQuery = true)
+    int insert(@Param("userId") UUID userId, @Param("revokedBefore") Instant revokedBefore);
+
+    // Mốc cũ hơn thời hạn access token không còn token nào để chặn
+    @Transactional
+    @Modifying
+    @Query("delete from TokenRevocation r where r.revokedBefore < :cutoff")
+    int deleteOlderThan(@Param("cutoff") Instant cutoff);
+}
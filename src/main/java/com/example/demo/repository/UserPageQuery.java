@@ -0,0 +1,26 @@
+package com.example.demo.repository;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Set;
+import java.util.UUID;
+
+// Tham số cho truy vấn keyset pagination trên bảng users
+@Getter
+@Setter
+public class UserPageQuery {
+    // Chỉ cho phép sắp xếp theo các cột có index (cột, id)
+    public static final Set<String> SORTABLE_COLUMNS = Set.of("email", "full_name");
+
+    private String sort = "email";
+    private boolean descending;
+    private String roleName;
+    private String emailPrefix;
+    private int limit;
+
+    // Vị trí của bản ghi cuối trang trước (từ cursor), afterId null ở trang đầu;
+    // afterSortValue null khi bản ghi đó không có giá trị cột sắp xếp
+    private String afterSortValue;
+    private UUID afterId;
+}
@@ -1,10 +1,43 @@
 package com.example.demo.repository;
 
+import com.example.demo.dto.UserDTO;
+import com.example.demo.dto.UserVersion;
 import com.example.demo.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
-public interface UserRepository extends JpaRepository<User, UUID> {
-    User findByEmail(String email);
-}
\ No newline at end of file
+// Query khai báo ở đây mặc định chạy trong transaction readOnly (được định tuyến sang replica nếu có)
+@Transactional(readOnly = true)
+public interface UserRepository extends JpaRepository<User, UUID>, UserRepositoryCustom {
+    // Chỉ chạm index uk_users_email, không nạp entity
+    boolean existsByEmail(String email);
+
+    boolean existsByEmailAndIdNot(String email, UUID id);
+
+    // Projection: chỉ lấy các cột UserDTO cần (không có password), không qua persistence context
+    @Query("select new com.example.demo.dto.UserDTO(u.id, u.email, u.full_name, u.phone, r.id, r.name, u.version) "
+            + "from User u left join u.role r where u.email = :email")
+    Optional<UserDTO> findDtoByEmail(@Param("email") String email);
+
+    @Query("select new com.example.demo.dto.UserDTO(u.id, u.email, u.full_name, u.phone, r.id, r.name, u.version) "
+            + "from User u left join u.role r where u.id = :id")
+    Optional<UserDTO> findDtoById(@Param("id") UUID id);
+
+    // Chỉ id + version để trả lời If-None-Match (304) mà không nạp và serialize cả user
+    @Query("select new com.example.demo.dto.UserVersion(u.id, u.version) from User u where u.email = :email")
+    Optional<UserVersion> findVersionByEmail(@Param("email") String email);
+
+    @Query("select new com.example.demo.dto.UserVersion(u.id, u.version) from User u where u.id = :id")
+    Optional<UserVersion> findVersionById(@Param("id") UUID id);
+
+    // Những email trong danh sách đã tồn tại, dùng khi import theo lô
+    @Query("select u.email from User u where u.email in :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+}
@@ -0,0 +1,19 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.UserDTO;
+import com.example.demo.entity.User;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface UserRepositoryCustom {
+    // Trả về tối đa limit + 1 bản ghi để biết còn trang sau hay không
+    List<UserDTO> findPage(UserPageQuery query);
+
+    // Tra user theo email (natural id): lần sau lấy từ second-level cache, không truy vấn DB
+    Optional<User> findByNaturalEmail(String email);
+
+    // Tra user theo email luôn đọc DB (bỏ qua second-level cache) rồi ghi đè bản trong cache:
+    // dùng khi kiểm tra mật khẩu, cache của node này có thể cũ nếu user vừa bị sửa/xóa ở node khác
+    Optional<User> findByEmailFromDatabase(String email);
+}
@@ -0,0 +1,109 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.UserDTO;
+import com.example.demo.entity.Role;
+import com.example.demo.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.CacheRetrieveMode;
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.Session;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public class UserRepositoryImpl implements UserRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<User> findByNaturalEmail(String email) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(User.class)
+                .loadOptional(email);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<User> findByEmailFromDatabase(String email) {
+        return entityManager.createQuery(
+                        "select u from User u left join fetch u.role where u.email = :email", User.class)
+                .setParameter("email", email)
+                .setHint("jakarta.persistence.cache.retrieveMode", CacheRetrieveMode.BYPASS)
+                .setHint("jakarta.persistence.cache.storeMode", CacheStoreMode.REFRESH)
+                .getResultStream()
+                .findFirst();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<UserDTO> findPage(UserPageQuery query) {
+        HibernateCriteriaBuilder cb = entityManager.unwrap(Session.class).getCriteriaBuilder();
+        CriteriaQuery<UserDTO> cq = cb.createQuery(UserDTO.class);
+        Root<User> user = cq.from(User.class);
+        Join<User, Role> role = user.join("role", JoinType.LEFT);
+
+        // Chỉ select các cột UserDTO cần, không nạp entity vào persistence context
+        cq.select(cb.construct(UserDTO.class,
+                user.get("id"), user.get("email"), user.get("full_name"), user.get("phone"),
+                role.get("id"), role.get("name")));
+
+        Path<String> sortPath = user.get(query.getSort());
+        Path<UUID> idPath = user.get("id");
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (query.getRoleName() != null) {
+            predicates.add(cb.equal(cb.lower(role.get("name")), query.getRoleName().toLowerCase()));
+        }
+        if (query.getEmailPrefix() != null) {
+            predicates.add(cb.like(user.get("email"), escapeLike(query.getEmailPrefix()) + "%", '\\'));
+        }
+        if (query.getAfterId() != null) {
+            predicates.add(after(cb, sortPath, idPath, query));
+        }
+        cq.where(predicates.toArray(new Predicate[0]));
+        // Giá trị null (full_name) xếp sau cùng khi tăng dần, đầu tiên khi giảm dần: đúng thứ tự mặc định
+        // của PostgreSQL nên vẫn quét được index (cột, id) theo cả hai chiều
+        cq.orderBy(query.isDescending()
+                ? List.of(cb.desc(sortPath, true), cb.desc(idPath))
+                : List.of(cb.asc(sortPath, false), cb.asc(idPath)));
+
+        return entityManager.createQuery(cq)
+                .setMaxResults(query.getLimit() + 1)
+                .getResultList();
+    }
+
+    // Keyset: (sort, id) đứng sau bản ghi cuối của trang trước, tính cả nhóm sort = null
+    private static Predicate after(CriteriaBuilder cb, Path<String> sortPath, Path<UUID> idPath, UserPageQuery query) {
+        String value = query.getAfterSortValue();
+        UUID id = query.getAfterId();
+        if (query.isDescending()) {
+            if (value == null) {
+                return cb.or(cb.and(cb.isNull(sortPath), cb.lessThan(idPath, id)), cb.isNotNull(sortPath));
+            }
+            return cb.or(cb.lessThan(sortPath, value), cb.and(cb.equal(sortPath, value), cb.lessThan(idPath, id)));
+        }
+        if (value == null) {
+            return cb.and(cb.isNull(sortPath), cb.greaterThan(idPath, id));
+        }
+        return cb.or(cb.greaterThan(sortPath, value), cb.and(cb.equal(sortPath, value), cb.greaterThan(idPath, id)),
+                cb.isNull(sortPath));
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
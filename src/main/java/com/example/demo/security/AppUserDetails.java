@@ -0,0 +1,28 @@
+package com.example.demo.security;
+
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+import java.util.UUID;
+
+// Principal sau khi xác thực: ngoài email/mật khẩu/quyền còn mang id và họ tên
+// để login ký token và trả lời mà không phải nạp lại user từ DB
+@Getter
+public class AppUserDetails extends User {
+
+    private final UUID id;
+    private final String fullName;
+
+    public AppUserDetails(UUID id, String email, String password, String fullName,
+                          Collection<? extends GrantedAuthority> authorities) {
+        super(email, password, authorities);
+        this.id = id;
+        this.fullName = fullName;
+    }
+
+    public AppUserDetails withPassword(String password) {
+        return new AppUserDetails(id, getUsername(), password, fullName, getAuthorities());
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.demo.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Thời gian từng bước của login, refresh-token và JwtAuthenticationFilter (auth.stage{flow,stage})
+// và số lần xác thực thất bại theo nguyên nhân (auth.failures{flow,cause}).
+// Histogram percentile được giới hạn min/max nên số bucket ít, đủ rẻ để bật trên production.
+@Component
+public class AuthMetrics {
+
+    public static final String FLOW_LOGIN = "login";
+    public static final String FLOW_REFRESH = "refresh";
+    public static final String FLOW_FILTER = "filter";
+
+    public enum Stage {
+        LOGIN_AUTHENTICATE(FLOW_LOGIN, "authenticate", Duration.ofMillis(1), Duration.ofSeconds(10)),
+        LOGIN_SIGN_TOKEN(FLOW_LOGIN, "sign-token", Duration.ofNanos(10_000), Duration.ofSeconds(1)),
+        LOGIN_REFRESH_TOKEN(FLOW_LOGIN, "refresh-token", Duration.ofNanos(100_000), Duration.ofSeconds(5)),
+        REFRESH_LOOKUP(FLOW_REFRESH, "lookup", Duration.ofNanos(100_000), Duration.ofSeconds(5)),
+        REFRESH_LOAD_USER(FLOW_REFRESH, "load-user", Duration.ofNanos(100_000), Duration.ofSeconds(5)),
+        REFRESH_SIGN_TOKEN(FLOW_REFRESH, "sign-token", Duration.ofNanos(10_000), Duration.ofSeconds(1)),
+        FILTER_PARSE(FLOW_FILTER, "parse", Duration.ofNanos(1_000), Duration.ofSeconds(1)),
+        FILTER_LOAD_USER(FLOW_FILTER, "load-user", Duration.ofNanos(1_000), Duration.ofSeconds(5)),
+        FILTER_AUTHORIZE(FLOW_FILTER, "authorize", Duration.ofNanos(1_000), Duration.ofSeconds(1));
+
+        private final String flow;
+        private final String stage;
+        private final Duration min;
+        private final Duration max;
+
+        Stage(String flow, String stage, Duration min, Duration max) {
+            this.flow = flow;
+            this.stage = stage;
+            this.min = min;
+            this.max = max;
+        }
+    }
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<Stage, Timer> timers = new EnumMap<>(Stage.class);
+    private final Map<String, Counter> failures = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        for (Stage stage : Stage.values()) {
+            timers.put(stage, Timer.builder("auth.stage")
+                    .description("Thời gian từng bước xác thực")
+                    .tag("flow", stage.flow)
+                    .tag("stage", stage.stage)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(stage.min)
+                    .maximumExpectedValue(stage.max)
+                    .register(meterRegistry));
+        }
+    }
+
+    public long start() {
+        return System.nanoTime();
+    }
+
+    // Ghi thời gian từ start đến hiện tại, trả về mốc mới để đo bước kế tiếp
+    public long stop(Stage stage, long startNanos) {
+        long now = System.nanoTime();
+        timers.get(stage).record(now - startNanos, TimeUnit.NANOSECONDS);
+        return now;
+    }
+
+    public void failure(String flow, String cause) {
+        failures.computeIfAbsent(flow + '|' + cause, key -> Counter.builder("auth.failures")
+                .description("Số lần xác thực thất bại theo nguyên nhân")
+                .tag("flow", flow)
+                .tag("cause", cause)
+                .register(meterRegistry)).increment();
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.demo.security;
+
+import com.example.demo.util.TokenBucketLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+
+// Chặn dò mật khẩu/spam đăng ký trước khi tốn CPU cho BCrypt: login giới hạn theo IP và theo email đích,
+// register theo IP. Được gọi đầu controller, trước mọi bước băm mật khẩu.
+@Component
+public class AuthRateLimiter {
+
+    public static final String ENDPOINT_LOGIN = "login";
+    public static final String ENDPOINT_REGISTER = "register";
+
+    @Value("${rate-limit.enabled:true}")
+    private boolean enabled;
+
+    // Số key (IP/email) tối đa được theo dõi cho mỗi bucket, giới hạn bộ nhớ
+    @Value("${rate-limit.max-keys:100000}")
+    private long maxKeys;
+
+    @Value("${rate-limit.login.per-ip.capacity:20}")
+    private long loginIpCapacity;
+
+    @Value("${rate-limit.login.per-ip.refill-ms:3000}")
+    private long loginIpRefillMs;
+
+    @Value("${rate-limit.login.per-email.capacity:5}")
+    private long loginEmailCapacity;
+
+    @Value("${rate-limit.login.per-email.refill-ms:12000}")
+    private long loginEmailRefillMs;
+
+    @Value("${rate-limit.register.per-ip.capacity:5}")
+    private long registerIpCapacity;
+
+    @Value("${rate-limit.register.per-ip.refill-ms:12000}")
+    private long registerIpRefillMs;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private TokenBucketLimiter loginByIp;
+    private TokenBucketLimiter loginByEmail;
+    private TokenBucketLimiter registerByIp;
+
+    @PostConstruct
+    void init() {
+        loginByIp = new TokenBucketLimiter(loginIpCapacity, Duration.ofMillis(loginIpRefillMs), maxKeys);
+        loginByEmail = new TokenBucketLimiter(loginEmailCapacity, Duration.ofMillis(loginEmailRefillMs), maxKeys);
+        registerByIp = new TokenBucketLimiter(registerIpCapacity, Duration.ofMillis(registerIpRefillMs), maxKeys);
+    }
+
+    // IP trước: IP đã bị chặn thì không tiêu token của email (kẻ tấn công không khóa được tài khoản người khác nhanh hơn)
+    public void checkLogin(String clientIp, String email) {
+        if (!enabled) {
+            return;
+        }
+        acquire(loginByIp, clientIp, ENDPOINT_LOGIN, "ip");
+        if (email != null && !email.isEmpty()) {
+            acquire(loginByEmail, email.toLowerCase(Locale.ROOT), ENDPOINT_LOGIN, "email");
+        }
+    }
+
+    public void checkRegister(String clientIp) {
+        if (!enabled) {
+            return;
+        }
+        acquire(registerByIp, clientIp, ENDPOINT_REGISTER, "ip");
+    }
+
+    private void acquire(TokenBucketLimiter limiter, String key, String endpoint, String keyType) {
+        long waitNanos = limiter.tryAcquire(key);
+        if (waitNanos > 0) {
+            meterRegistry.counter("rate.limit.rejections", "endpoint", endpoint, "key", keyType).increment();
+            throw new RateLimitExceededException(TokenBucketLimiter.retryAfterSeconds(waitNanos));
+        }
+    }
+}
@@ -1,34 +1,69 @@
 package com.example.demo.security;
 
+import com.example.demo.config.ReplicaRoutingDataSource;
+import com.example.demo.entity.Role;
 import com.example.demo.entity.User;
 import com.example.demo.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
-
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private RoleRegistry roleRegistry;
+
+    // DaoAuthenticationProvider gọi khi login: luôn đọc primary để mật khẩu/email vừa đổi hoặc user vừa xóa
+    // ở node khác có hiệu lực ngay, không chờ cache hết hạn hay replica bắt kịp (login là anonymous nên
+    // không có read-your-writes). Dòng đọc được ghi đè vào L2 cache, nên không được là bản cũ từ replica
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        User user = userRepository.findByEmail(email);
-        if (user == null) {
-            throw new UsernameNotFoundException("User not found with email: " + email);
-        }
+        return toUserDetails(ReplicaRoutingDataSource.onPrimary(() -> userRepository.findByEmailFromDatabase(email))
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email)));
+    }
+
+    // Chế độ reload của JwtAuthenticationFilter: đọc từ second-level cache, cache miss thì đọc primary. Token đã qua
+    // kiểm tra thu hồi, và mốc thu hồi từ node khác xóa luôn user khỏi cache (TokenRevocationService.sync)
+    public UserDetails loadCachedUserByUsername(String email) throws UsernameNotFoundException {
+        return toUserDetails(ReplicaRoutingDataSource.onPrimary(() -> userRepository.findByNaturalEmail(email))
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email)));
+    }
 
-        String roleName = user.getRole() != null ? "ROLE_" + user.getRole().getName().toUpperCase() : "ROLE_CUSTOMER";
-        return new org.springframework.security.core.userdetails.User(
+    private UserDetails toUserDetails(User user) {
+        return new AppUserDetails(
+                user.getId(),
                 user.getEmail(),
                 user.getPassword(),
-                Collections.singletonList(new SimpleGrantedAuthority(roleName))
+                user.getFull_name(),
+                roleRegistry.authoritiesOf(user.getRole())
         );
     }
+
+    // Được DaoAuthenticationProvider gọi sau khi login thành công nếu hash cũ có cost thấp hơn cấu hình
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        ReplicaRoutingDataSource.onPrimary(() -> userRepository.findByNaturalEmail(userDetails.getUsername()))
+                .ifPresent(user -> {
+                    user.setPassword(newPassword);
+                    userRepository.save(user);
+                });
+        if (userDetails instanceof AppUserDetails appUserDetails) {
+            return appUserDetails.withPassword(newPassword);
+        }
+        return org.springframework.security.core.userdetails.User.withUserDetails(userDetails)
+                .password(newPassword)
+                .build();
+    }
+
+    // Tên quyền Spring Security tương ứng với role, mặc định ROLE_CUSTOMER
+    public static String authorityOf(Role role) {
+        return role != null ? "ROLE_" + role.getName().toUpperCase() : "ROLE_CUSTOMER";
+    }
 }
\ No newline at end of file
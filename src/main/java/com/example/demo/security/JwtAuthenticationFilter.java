@@ -1,29 +1,52 @@
 package com.example.demo.security;
 
+import com.example.demo.service.TokenRevocationService;
 import com.example.demo.util.JwtUtil;
+import com.example.demo.util.VerifiedToken;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.security.SecurityException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    public static final String MODE_STATELESS = "stateless";
+    public static final String MODE_RELOAD = "reload";
+
+    @Value("${jwt.auth-mode:" + MODE_RELOAD + "}")
+    private String authMode;
+
     @Autowired
     private JwtUtil jwtUtil;
 
     @Autowired
-    private UserDetailsService userDetailsService;
+    private CustomUserDetailsService userDetailsService;
+
+    @Autowired
+    private RoleRegistry roleRegistry;
+
+    @Autowired
+    private AuthMetrics authMetrics;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -39,22 +62,36 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         String authorizationHeader = request.getHeader("Authorization");
-        String jwt = null;
-        String email = null;
+        VerifiedToken token = null;
 
+        long started = 0;
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
+            String jwt = authorizationHeader.substring(7);
+            started = authMetrics.start();
             try {
-                email = jwtUtil.extractEmail(jwt);
+                // verify chữ ký và hạn dùng một lần duy nhất
+                token = jwtUtil.verify(jwt);
             } catch (Exception e) {
+                authMetrics.failure(AuthMetrics.FLOW_FILTER, failureCause(e));
                 logger.warn("JWT parsing failed: " + e.getMessage());
             }
+            started = authMetrics.stop(AuthMetrics.Stage.FILTER_PARSE, started);
+
+            // Token cấp trước mốc thu hồi của user (xóa, đổi role/mật khẩu, logout): một lần tra map, không query DB
+            if (token != null && tokenRevocationService.isRevoked(token.getUserId(), token.getIssuedAt())) {
+                authMetrics.failure(AuthMetrics.FLOW_FILTER, "revoked");
+                token = null;
+            }
         }
 
-        if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(email);
+        if (token != null && token.getSubject() != null
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            UserDetails userDetails = MODE_STATELESS.equals(authMode)
+                    ? userFromToken(token)
+                    : userDetailsService.loadCachedUserByUsername(token.getSubject());
+            started = authMetrics.stop(AuthMetrics.Stage.FILTER_LOAD_USER, started);
 
-            if (jwtUtil.validateToken(jwt, userDetails.getUsername())) {
+            if (userDetails != null && token.getSubject().equals(userDetails.getUsername())) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails,
                         null,
@@ -62,9 +99,44 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 );
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
+                authMetrics.stop(AuthMetrics.Stage.FILTER_AUTHORIZE, started);
+            } else {
+                authMetrics.failure(AuthMetrics.FLOW_FILTER, "user_mismatch");
             }
         }
 
         filterChain.doFilter(request, response);
     }
+
+    private static String failureCause(Exception e) {
+        if (e instanceof ExpiredJwtException) {
+            return "expired";
+        }
+        if (e instanceof SecurityException) {
+            return "bad_signature";
+        }
+        if (e instanceof MalformedJwtException) {
+            return "malformed";
+        }
+        return "invalid_token";
+    }
+
+    // Dựng principal chỉ từ claims đã verify, không truy vấn DB
+    private UserDetails userFromToken(VerifiedToken token) {
+        List<String> roles = token.getRoles();
+        if (roles == null) {
+            return null;
+        }
+        // Token thường chỉ có một role: dùng luôn danh sách authority dựng sẵn trong RoleRegistry
+        List<GrantedAuthority> authorities;
+        if (roles.size() == 1) {
+            authorities = roleRegistry.authoritiesOf(roles.get(0));
+        } else {
+            authorities = new ArrayList<>(roles.size());
+            for (String role : roles) {
+                authorities.addAll(roleRegistry.authoritiesOf(role));
+            }
+        }
+        return new org.springframework.security.core.userdetails.User(token.getSubject(), "", authorities);
+    }
 }
\ No newline at end of file
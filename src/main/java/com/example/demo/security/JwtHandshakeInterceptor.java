@@ -0,0 +1,77 @@
+package com.example.demo.security;
+
+import com.example.demo.service.TokenRevocationService;
+import com.example.demo.util.JwtUtil;
+import com.example.demo.util.VerifiedToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.List;
+import java.util.Map;
+
+// Xác thực handshake WebSocket bằng access token hiện có: header Authorization, hoặc ?access_token=
+// vì WebSocket API của trình duyệt không đặt được header. Chỉ ADMIN, token chưa bị thu hồi.
+@Component
+public class JwtHandshakeInterceptor implements HandshakeInterceptor {
+
+    public static final String ATTR_TOKEN = "token";
+
+    private static final Logger log = LoggerFactory.getLogger(JwtHandshakeInterceptor.class);
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        String jwt = extractToken(request);
+        if (jwt == null) {
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+        VerifiedToken token;
+        try {
+            token = jwtUtil.verify(jwt);
+        } catch (Exception e) {
+            log.warn("WebSocket handshake với token không hợp lệ: {}", e.getMessage());
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+        if (tokenRevocationService.isRevoked(token.getUserId(), token.getIssuedAt())) {
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+        List<String> roles = token.getRoles();
+        if (roles == null || !roles.contains("ROLE_ADMIN")) {
+            response.setStatusCode(HttpStatus.FORBIDDEN);
+            return false;
+        }
+        attributes.put(ATTR_TOKEN, token);
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+
+    private static String extractToken(ServerHttpRequest request) {
+        String authorization = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authorization != null && authorization.startsWith("Bearer ")) {
+            return authorization.substring(7);
+        }
+        return UriComponentsBuilder.fromUri(request.getURI()).build().getQueryParams().getFirst("access_token");
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.demo.security;
+
+import lombok.Getter;
+
+// Vượt giới hạn số lần thử login/register: trả 429 kèm Retry-After
+@Getter
+public class RateLimitExceededException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public RateLimitExceededException(long retryAfterSeconds) {
+        super("Rate limit exceeded");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
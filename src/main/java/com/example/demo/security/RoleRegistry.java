@@ -0,0 +1,142 @@
+package com.example.demo.security;
+
+import com.example.demo.config.ReplicaRoutingDataSource;
+import com.example.demo.entity.Role;
+import com.example.demo.repository.RoleRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Danh sách role nạp một lần lúc khởi động, giữ trong snapshot bất biến.
+// Tra cứu theo id/tên/authority không truy vấn DB và không cấp phát; đổi role thì gọi refresh().
+@Component
+public class RoleRegistry {
+
+    public static final String DEFAULT_ROLE = "customer";
+
+    // Các role mặc định và mô tả, được tạo nếu chưa có
+    private static final Map<String, String> SEEDED_ROLES = new LinkedHashMap<>();
+
+    static {
+        SEEDED_ROLES.put(DEFAULT_ROLE, "Khách hàng mặc định");
+        SEEDED_ROLES.put("staff", "Nhân viên");
+        SEEDED_ROLES.put("consultant", "Tư vấn viên");
+        SEEDED_ROLES.put("admin", "Quản trị viên");
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(RoleRegistry.class);
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    private volatile Snapshot snapshot = new Snapshot(List.of());
+
+    // Không dùng synchronized: refresh truy vấn DB khi đang giữ khóa, synchronized sẽ ghim carrier thread của virtual thread
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    @PostConstruct
+    public void refresh() {
+        refreshLock.lock();
+        try {
+            seedDefaults();
+            // Role vừa seed/sửa phải thấy ngay, không đọc từ replica
+            Snapshot loaded = new Snapshot(ReplicaRoutingDataSource.onPrimary(roleRepository::findAll));
+            snapshot = loaded;
+            log.info("Đã nạp {} role", loaded.byId.size());
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    public Role findById(UUID id) {
+        Entry entry = id != null ? snapshot.byId.get(id) : null;
+        return entry != null ? entry.role : null;
+    }
+
+    public Role findByName(String name) {
+        Entry entry = name != null ? snapshot.byName.get(name) : null;
+        return entry != null ? entry.role : null;
+    }
+
+    public Role defaultRole() {
+        return findByName(DEFAULT_ROLE);
+    }
+
+    public Collection<Role> all() {
+        return snapshot.roles;
+    }
+
+    // Quyền của user theo role; role null hoặc chưa nạp thì dùng ROLE_CUSTOMER như trước
+    public List<GrantedAuthority> authoritiesOf(Role role) {
+        Snapshot current = snapshot;
+        Entry entry = role != null ? current.byId.get(role.getId()) : current.byName.get(DEFAULT_ROLE);
+        if (entry != null) {
+            return entry.authorities;
+        }
+        return List.of(new SimpleGrantedAuthority(CustomUserDetailsService.authorityOf(role)));
+    }
+
+    // Quyền theo tên authority trong JWT (vd. "ROLE_ADMIN"); authority lạ vẫn được giữ nguyên
+    public List<GrantedAuthority> authoritiesOf(String authority) {
+        Entry entry = snapshot.byAuthority.get(authority);
+        return entry != null ? entry.authorities : List.of(new SimpleGrantedAuthority(authority));
+    }
+
+    private void seedDefaults() {
+        for (Map.Entry<String, String> seed : SEEDED_ROLES.entrySet()) {
+            if (roleRepository.findByName(seed.getKey()).isPresent()) {
+                continue;
+            }
+            Role role = new Role();
+            role.setId(UUID.randomUUID());
+            role.setName(seed.getKey());
+            role.setDescription(seed.getValue());
+            try {
+                roleRepository.save(role);
+            } catch (DataIntegrityViolationException e) {
+                // Instance khác vừa tạo cùng role (uk_roles_name)
+                log.debug("Role {} đã được tạo ở nơi khác", seed.getKey());
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final Role role;
+        private final List<GrantedAuthority> authorities;
+
+        private Entry(Role role) {
+            this.role = role;
+            this.authorities = List.of(new SimpleGrantedAuthority(CustomUserDetailsService.authorityOf(role)));
+        }
+    }
+
+    private static final class Snapshot {
+        private final List<Role> roles;
+        private final Map<UUID, Entry> byId = new HashMap<>();
+        private final Map<String, Entry> byName = new HashMap<>();
+        private final Map<String, Entry> byAuthority = new HashMap<>();
+
+        private Snapshot(List<Role> roles) {
+            this.roles = List.copyOf(roles);
+            for (Role role : this.roles) {
+                Entry entry = new Entry(role);
+                byId.put(role.getId(), entry);
+                byName.put(role.getName(), entry);
+                byAuthority.put(entry.authorities.get(0).getAuthority(), entry);
+            }
+        }
+    }
+}
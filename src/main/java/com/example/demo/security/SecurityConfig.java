@@ -9,8 +9,6 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
@@ -32,6 +30,10 @@ public class SecurityConfig {
                         .requestMatchers("/api/users/register", "/api/users/login", "/api/users/refresh-token").permitAll() // Cho phép truy cập không cần xác thực
                         .requestMatchers("/api/users/get-by-email/**").authenticated() // Yêu cầu xác thực
                         .requestMatchers("/api/admin/users/**").hasRole("ADMIN") // Tất cả API trong AdminAPI yêu cầu vai trò ADMIN
+                        .requestMatchers("/api/admin/roles/**").hasRole("ADMIN")
+                        .requestMatchers("/ws/admin/users").permitAll() // JwtHandshakeInterceptor kiểm tra token + ADMIN (token có thể nằm ở query)
+                        .requestMatchers("/actuator/health", "/actuator/health/**").permitAll() // Health check cho load balancer
+                        .requestMatchers("/actuator/**").hasRole("ADMIN") // metrics, prometheus
                         .requestMatchers("/api/customer/**").hasAnyRole("CUSTOMER", "STAFF", "ADMIN", "CONSULTANT")
                         .anyRequest().authenticated()
                 )
@@ -43,11 +45,6 @@ public class SecurityConfig {
                 .build();
     }
 
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
-
     @Bean
     public AuthenticationManager authenticationManager(AuthenticationConfiguration authenticationConfiguration) throws Exception {
         return authenticationConfiguration.getAuthenticationManager();
@@ -0,0 +1,305 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.AuditLog;
+import com.example.demo.util.MpscRingBuffer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Audit log bất đồng bộ: request chỉ đẩy sự kiện vào ring buffer (một CAS), một thread nền gom và ghi
+// bằng JDBC batch insert (PostgreSQL gộp thành insert nhiều dòng nhờ reWriteBatchedInserts).
+// Buffer đầy: DROP bỏ sự kiện và đếm, BLOCK chờ tối đa block-timeout-ms rồi mới bỏ; đó là cách duy nhất sự kiện bị bỏ
+// khi database còn sống. Ghi lỗi (database không tới được): writer giữ lô ngoài ring buffer và thử lại với backoff
+// tăng dần tới khi ghi được, trong lúc đó buffer đầy dần và overflow-policy áp dụng như bình thường.
+// Dòng vi phạm ràng buộc (không bao giờ ghi được) bị loại riêng, không chặn cả lô.
+// Khi tắt ứng dụng, writer ghi nốt mọi sự kiện còn trong buffer trước khi DataSource bị đóng.
+@Service
+public class AuditService {
+
+    public enum OverflowPolicy { DROP, BLOCK }
+
+    private static final Logger log = LoggerFactory.getLogger(AuditService.class);
+
+    // Sau khi bắt đầu tắt, lô ghi lỗi còn được thử lại trong khoảng này (writer được chờ tối đa 30 giây)
+    private static final long SHUTDOWN_RETRY_NANOS = TimeUnit.SECONDS.toNanos(20);
+
+    private static final String INSERT_SQL =
+            "insert into audit_log (id, occurred_at, action, actor, target_user_id, client_ip, detail) values (?, ?, ?, ?, ?, ?, ?)";
+
+    @Value("${audit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${audit.buffer-capacity:8192}")
+    private int bufferCapacity;
+
+    @Value("${audit.batch-size:500}")
+    private int batchSize;
+
+    @Value("${audit.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${audit.overflow-policy:DROP}")
+    private OverflowPolicy overflowPolicy;
+
+    @Value("${audit.block-timeout-ms:50}")
+    private long blockTimeoutMs;
+
+    @Value("${audit.retry-initial-backoff-ms:100}")
+    private long retryInitialBackoffMs;
+
+    @Value("${audit.retry-max-backoff-ms:5000}")
+    private long retryMaxBackoffMs;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private MpscRingBuffer<Event> buffer;
+    private Thread writer;
+    private volatile boolean running;
+    private volatile long stopRequestedAt;
+    // Số sự kiện đã vào buffer / đã được writer xử lý xong (ghi được hoặc bị loại), để flush() biết khi nào xong
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private Counter queued;
+    private Counter dropped;
+    private Counter written;
+    private Counter rejected;
+    private Counter lost;
+    private Counter writeFailures;
+
+    @PostConstruct
+    void init() {
+        buffer = new MpscRingBuffer<>(bufferCapacity);
+        queued = Counter.builder("audit.events").tag("result", "queued").register(meterRegistry);
+        dropped = Counter.builder("audit.events").tag("result", "dropped").register(meterRegistry);
+        written = Counter.builder("audit.events").tag("result", "written").register(meterRegistry);
+        rejected = Counter.builder("audit.events").tag("result", "rejected").register(meterRegistry);
+        lost = Counter.builder("audit.events").tag("result", "lost").register(meterRegistry);
+        writeFailures = Counter.builder("audit.write.failures").register(meterRegistry);
+        Gauge.builder("audit.buffer.size", buffer, MpscRingBuffer::size).register(meterRegistry);
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::writeLoop, "audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // Người thực hiện lấy từ SecurityContext (admin đang gọi API)
+    public void record(AuditLog.Action action, UUID targetUserId, String clientIp, String detail) {
+        record(action, currentActor(), targetUserId, clientIp, detail);
+    }
+
+    public void record(AuditLog.Action action, String actor, UUID targetUserId, String clientIp, String detail) {
+        if (!enabled) {
+            return;
+        }
+        Event event = new Event(Instant.now(), action, actor, targetUserId, clientIp, detail);
+        if (buffer.offer(event) || (overflowPolicy == OverflowPolicy.BLOCK && offerWithin(event))) {
+            accepted.incrementAndGet();
+            queued.increment();
+            // Đủ một lô thì đánh thức writer sớm, không chờ hết flush-interval
+            if (buffer.size() >= batchSize) {
+                LockSupport.unpark(writer);
+            }
+        } else {
+            dropped.increment();
+        }
+    }
+
+    // Import hàng loạt: mỗi user một sự kiện. Không áp overflow-policy mà chờ writer ghi bớt khi buffer đầy,
+    // vì import không nhạy độ trễ và không được mất dấu ai tạo tài khoản nào
+    public void recordAll(AuditLog.Action action, List<UUID> targetUserIds, String clientIp, String detail) {
+        if (!enabled) {
+            return;
+        }
+        String actor = currentActor();
+        for (UUID targetUserId : targetUserIds) {
+            Event event = new Event(Instant.now(), action, actor, targetUserId, clientIp, detail);
+            while (!buffer.offer(event)) {
+                if (!running) {
+                    dropped.increment();
+                    return;
+                }
+                LockSupport.unpark(writer);
+                LockSupport.parkNanos(100_000);
+            }
+            accepted.incrementAndGet();
+            queued.increment();
+        }
+        LockSupport.unpark(writer);
+    }
+
+    private boolean offerWithin(Event event) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(blockTimeoutMs);
+        LockSupport.unpark(writer);
+        while (System.nanoTime() - deadline < 0) {
+            LockSupport.parkNanos(100_000);
+            if (buffer.offer(event)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void writeLoop() {
+        List<Event> batch = new ArrayList<>(batchSize);
+        while (running) {
+            buffer.drain(batch::add, batchSize);
+            if (batch.isEmpty()) {
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(flushIntervalMs));
+                continue;
+            }
+            writeWithRetry(batch);
+            batch.clear();
+        }
+        // Dừng: ghi hết phần còn lại
+        while (buffer.drain(batch::add, batchSize) > 0) {
+            writeWithRetry(batch);
+            batch.clear();
+        }
+    }
+
+    // Không lấy thêm sự kiện khi lô hiện tại chưa ghi được. Chỉ bỏ lô khi đã tắt và hết SHUTDOWN_RETRY_NANOS
+    private void writeWithRetry(List<Event> batch) {
+        long backoffMs = retryInitialBackoffMs;
+        int attempt = 1;
+        while (!write(batch, attempt)) {
+            if (!running && System.nanoTime() - stopRequestedAt > SHUTDOWN_RETRY_NANOS) {
+                lost.increment(batch.size());
+                processed.addAndGet(batch.size());
+                log.error("Bỏ {} sự kiện audit: không ghi được trước khi tắt", batch.size());
+                return;
+            }
+            sleep(backoffMs);
+            backoffMs = Math.min(backoffMs * 2, retryMaxBackoffMs);
+            attempt++;
+        }
+        processed.addAndGet(batch.size());
+    }
+
+    // true khi cả lô đã xong. Lô có dòng vi phạm ràng buộc được ghi lại từng dòng: dòng ghi được hoặc bị loại
+    // được bỏ khỏi lô, phần còn lại (nếu database lỗi giữa chừng) chờ lượt thử sau
+    private boolean write(List<Event> batch, int attempt) {
+        try {
+            List<Object[]> rows = batch.stream().map(AuditService::row).toList();
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, rows));
+            written.increment(batch.size());
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return writeEach(batch, attempt);
+        } catch (RuntimeException e) {
+            writeFailures.increment();
+            log.error("Không ghi được {} sự kiện audit (lần {}), sẽ thử lại", batch.size(), attempt, e);
+            return false;
+        }
+    }
+
+    private boolean writeEach(List<Event> batch, int attempt) {
+        Iterator<Event> events = batch.iterator();
+        while (events.hasNext()) {
+            Event event = events.next();
+            try {
+                jdbcTemplate.update(INSERT_SQL, row(event));
+                written.increment();
+            } catch (DataIntegrityViolationException e) {
+                rejected.increment();
+                log.error("Bỏ sự kiện audit {} vi phạm ràng buộc", event.action, e);
+            } catch (RuntimeException e) {
+                writeFailures.increment();
+                log.error("Không ghi được {} sự kiện audit (lần {}), sẽ thử lại", batch.size(), attempt, e);
+                return false;
+            }
+            events.remove();
+            processed.incrementAndGet();
+        }
+        return true;
+    }
+
+    // Không dùng unpark để thức sớm: record() đánh thức writer liên tục khi buffer đầy, sẽ thành vòng thử lại liên tục
+    private void sleep(long millis) {
+        long wakeAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        long remaining;
+        while ((remaining = wakeAt - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, remaining);
+        }
+    }
+
+    private static Object[] row(Event event) {
+        return new Object[]{UUID.randomUUID(), Timestamp.from(event.occurredAt), event.action.name(),
+                event.actor, event.targetUserId, event.clientIp, event.detail};
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        stopRequestedAt = System.nanoTime();
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+        if (buffer.size() > 0) {
+            log.warn("Còn {} sự kiện audit chưa ghi khi tắt", buffer.size());
+        }
+    }
+
+    // Ghi ngay mọi sự kiện đang chờ (dùng khi cần đọc lại audit log ngay, ví dụ trong test)
+    public void flush() {
+        long target = accepted.get();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (writer != null && processed.get() < target && System.nanoTime() - deadline < 0) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(1_000_000);
+        }
+    }
+
+    private static String currentActor() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+
+    @AllArgsConstructor
+    private static final class Event {
+        private final Instant occurredAt;
+        private final AuditLog.Action action;
+        private final String actor;
+        private final UUID targetUserId;
+        private final String clientIp;
+        private final String detail;
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.demo.service;
+
+import com.example.demo.config.ReplicaRoutingDataSource;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.util.EmailBloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+
+// Kiểm tra email đã tồn tại: Bloom filter trả lời "chắc chắn mới" không cần database,
+// chỉ khi filter báo "có thể có" mới chạy truy vấn exists trên index.
+// Ràng buộc unique uk_users_email vẫn là chốt chặn cuối (đăng ký song song, instance khác).
+@Service
+public class EmailExistenceService {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailExistenceService.class);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${email-filter.expected-insertions:1000000}")
+    private long expectedInsertions;
+
+    @Value("${email-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${email-filter.fetch-size:1000}")
+    private int fetchSize;
+
+    private EmailBloomFilter filter;
+
+    // Chưa nạp xong thì coi mọi email là "có thể có" và hỏi database
+    private volatile boolean loaded;
+
+    private Counter definitelyNew;
+    private Counter probed;
+    private Counter falsePositives;
+
+    @PostConstruct
+    void init() {
+        filter = new EmailBloomFilter(expectedInsertions, falsePositiveRate);
+        definitelyNew = Counter.builder("email.filter.lookups").tag("result", "negative").register(meterRegistry);
+        probed = Counter.builder("email.filter.lookups").tag("result", "maybe").register(meterRegistry);
+        falsePositives = Counter.builder("email.filter.false-positives").register(meterRegistry);
+        Gauge.builder("email.filter.saturation", filter, EmailBloomFilter::saturation).register(meterRegistry);
+    }
+
+    // Nạp lại từ bảng users bằng cursor; email ghi trong lúc nạp vẫn vào cùng filter nên không bị sót
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long started = System.nanoTime();
+        long[] count = {0};
+        JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+        streaming.setFetchSize(fetchSize);
+        // PostgreSQL chỉ stream theo fetch size khi autocommit tắt
+        transactionTemplate.executeWithoutResult(status -> streaming.query("select email from users", rs -> {
+            String email = rs.getString(1);
+            if (email != null) {
+                filter.put(email);
+                count[0]++;
+            }
+        }));
+        loaded = true;
+        log.info("Đã nạp {} email vào Bloom filter trong {} ms ({} bit, {} hàm băm)", count[0],
+                (System.nanoTime() - started) / 1_000_000, filter.bitCount(), filter.hashCount());
+    }
+
+    public boolean mightExist(String email) {
+        if (loaded && !filter.mightContain(email)) {
+            definitelyNew.increment();
+            return false;
+        }
+        probed.increment();
+        return true;
+    }
+
+    public boolean exists(String email) {
+        if (!mightExist(email)) {
+            return false;
+        }
+        // Đăng ký là anonymous (không có read-your-writes): đọc primary để thấy email vừa đăng ký ở request trước
+        boolean exists = ReplicaRoutingDataSource.onPrimary(() -> userRepository.existsByEmail(email));
+        if (!exists && loaded) {
+            falsePositives.increment();
+        }
+        return exists;
+    }
+
+    // Email đã thuộc về user khác (dùng khi cập nhật)
+    public boolean existsForOtherUser(String email, UUID userId) {
+        return mightExist(email)
+                && ReplicaRoutingDataSource.onPrimary(() -> userRepository.existsByEmailAndIdNot(email, userId));
+    }
+
+    // Gọi trước khi insert/update: nếu ghi thất bại chỉ tạo thêm một false positive
+    public void record(String email) {
+        if (email != null) {
+            filter.put(email);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.demo.service;
+
+import com.example.demo.security.AppUserDetails;
+import com.example.demo.security.AuthMetrics;
+import com.example.demo.util.JwtUtil;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+// Phần sau xác thực của login: dùng lại principal mà AuthenticationManager đã nạp (không query user lần nữa),
+// ký access token rồi xoay refresh token bằng một upsert trong một transaction
+@Service
+public class LoginService {
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private AuthMetrics authMetrics;
+
+    // Ký JWT trước, ngoài transaction, để không giữ connection trong lúc ký
+    public LoginResult login(AppUserDetails principal) {
+        long started = authMetrics.start();
+        String accessToken = jwtUtil.generateAccessToken(principal);
+        started = authMetrics.stop(AuthMetrics.Stage.LOGIN_SIGN_TOKEN, started);
+        String refreshToken = refreshTokenService.rotateRefreshToken(principal.getId());
+        authMetrics.stop(AuthMetrics.Stage.LOGIN_REFRESH_TOKEN, started);
+        return new LoginResult(accessToken, refreshToken);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class LoginResult {
+        private final String accessToken;
+        private final String refreshToken;
+    }
+}
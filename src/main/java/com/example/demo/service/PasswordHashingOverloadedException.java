@@ -0,0 +1,8 @@
+package com.example.demo.service;
+
+// Hàng đợi băm mật khẩu đã đầy: trả 503 ngay thay vì để backlog tăng vô hạn
+public class PasswordHashingOverloadedException extends RuntimeException {
+    public PasswordHashingOverloadedException() {
+        super("Password hashing queue is full");
+    }
+}
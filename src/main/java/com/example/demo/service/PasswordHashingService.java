@@ -0,0 +1,139 @@
+package com.example.demo.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// PasswordEncoder chạy BCrypt trên executor riêng với hàng đợi giới hạn,
+// để một đợt login/register dồn dập không chiếm hết thread của Tomcat
+@Service
+public class PasswordHashingService implements PasswordEncoder {
+
+    @Value("${security.password.bcrypt-strength:10}")
+    private int strength;
+
+    // 0 = bằng số core
+    @Value("${security.password.hash-threads:0}")
+    private int threads;
+
+    @Value("${security.password.hash-queue-capacity:64}")
+    private int queueCapacity;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private BCryptPasswordEncoder encoder;
+    private ThreadPoolExecutor executor;
+    // Pool riêng cho import hàng loạt, không đi qua hàng đợi giới hạn của request tương tác
+    private ForkJoinPool bulkPool;
+    private Timer encodeTimer;
+    private Timer matchesTimer;
+    private Counter rejected;
+
+    @PostConstruct
+    void init() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.encoder = new BCryptPasswordEncoder(strength);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.bulkPool = new ForkJoinPool(poolSize);
+
+        Gauge.builder("password.hash.queue.depth", executor, e -> e.getQueue().size())
+                .description("Số yêu cầu băm mật khẩu đang chờ")
+                .register(meterRegistry);
+        Gauge.builder("password.hash.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+        this.encodeTimer = Timer.builder("password.hash.latency").tag("operation", "encode")
+                .tag("strength", String.valueOf(strength)).register(meterRegistry);
+        this.matchesTimer = Timer.builder("password.hash.latency").tag("operation", "matches")
+                .tag("strength", String.valueOf(strength)).register(meterRegistry);
+        this.rejected = Counter.builder("password.hash.rejected").register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        bulkPool.shutdown();
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(() -> encodeTimer.recordCallable(() -> encoder.encode(rawPassword)));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> matchesTimer.recordCallable(() -> encoder.matches(rawPassword, encodedPassword)));
+    }
+
+    // Băm song song trên mọi core, giữ nguyên thứ tự; dùng cho import hàng loạt
+    public List<String> encodeAll(List<? extends CharSequence> rawPasswords) {
+        try {
+            return bulkPool.submit(() -> rawPasswords.parallelStream()
+                    .map(raw -> encodeTimer.record(() -> encoder.encode(raw)))
+                    .toList()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Bị ngắt khi đang băm mật khẩu", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // true nếu hash được tạo với cost thấp hơn cấu hình hiện tại, DaoAuthenticationProvider sẽ băm lại sau khi login thành công
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return encoder.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T submit(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingOverloadedException();
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Bị ngắt khi đang băm mật khẩu", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -1,12 +1,18 @@
 package com.example.demo.service;
 
+import com.example.demo.config.ReplicaRoutingDataSource;
 import com.example.demo.entity.RefreshToken;
 import com.example.demo.repository.RefreshTokenRepository;
-import com.example.demo.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
+import java.util.HexFormat;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -16,20 +22,27 @@ public class RefreshTokenService {
     @Autowired
     private RefreshTokenRepository refreshTokenRepository;
 
-    @Autowired
-    private UserRepository userRepository;
-
-    public RefreshToken createRefreshToken(UUID userId) { // Đổi từ String thành UUID
-        RefreshToken refreshToken = new RefreshToken();
-        refreshToken.setId(UUID.randomUUID());
-        refreshToken.setUserId(userId);
-        refreshToken.setToken(UUID.randomUUID().toString());
-        refreshToken.setExpiryDate(Instant.now().plusMillis(604800000)); // 7 ngày
-        return refreshTokenRepository.save(refreshToken);
+    @Value("${jwt.refresh-token-expiration}")
+    private Long refreshTokenExpiration;
+
+    // Thay refresh token của user bằng token mới trong một transaction: update, chưa có dòng thì insert.
+    // Không select trước, không delete; trả về token gốc (DB chỉ lưu hash)
+    @Transactional
+    public String rotateRefreshToken(UUID userId) {
+        String token = UUID.randomUUID().toString();
+        String tokenHash = hash(token);
+        Instant expiryDate = Instant.now().plusMillis(refreshTokenExpiration);
+        if (refreshTokenRepository.rotate(userId, tokenHash, expiryDate) == 0
+                && refreshTokenRepository.insertIfAbsent(UUID.randomUUID(), userId, tokenHash, expiryDate) == 0) {
+            // Login song song vừa chèn dòng của user này
+            refreshTokenRepository.rotate(userId, tokenHash, expiryDate);
+        }
+        return token;
     }
 
+    // Refresh ngay sau login (anonymous, token vừa xoay) phải thấy token mới: đọc primary
     public Optional<RefreshToken> findByToken(String token) {
-        return refreshTokenRepository.findByToken(token);
+        return ReplicaRoutingDataSource.onPrimary(() -> refreshTokenRepository.findByTokenHash(hash(token)));
     }
 
     public RefreshToken verifyExpiration(RefreshToken token) {
@@ -43,4 +56,13 @@ public class RefreshTokenService {
     public void deleteByUserId(UUID userId) { // Đổi từ String thành UUID
         refreshTokenRepository.deleteByUserId(userId);
     }
-}
\ No newline at end of file
+
+    static String hash(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 không khả dụng", e);
+        }
+    }
+}
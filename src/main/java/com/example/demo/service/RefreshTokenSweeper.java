@@ -0,0 +1,54 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.RefreshTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+// Định kỳ xóa refresh token hết hạn theo từng lô nhỏ để không giữ lock lâu trên refresh_tokens
+@Component
+public class RefreshTokenSweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenSweeper.class);
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Value("${refresh-token.sweeper.batch-size:500}")
+    private int batchSize;
+
+    // Số lô tối đa mỗi lần chạy, phần còn lại để lần sau
+    @Value("${refresh-token.sweeper.max-batches:20}")
+    private int maxBatches;
+
+    // Nghỉ giữa hai lô để nhường lock cho login/refresh
+    @Value("${refresh-token.sweeper.pause-ms:50}")
+    private long pauseMs;
+
+    @Scheduled(initialDelayString = "${refresh-token.sweeper.interval-ms:60000}",
+            fixedDelayString = "${refresh-token.sweeper.interval-ms:60000}")
+    public void sweep() {
+        int total = 0;
+        for (int i = 0; i < maxBatches; i++) {
+            int deleted = refreshTokenRepository.deleteExpiredBatch(Instant.now(), batchSize);
+            total += deleted;
+            if (deleted < batchSize) {
+                break;
+            }
+            try {
+                Thread.sleep(pauseMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("Đã xóa {} refresh token hết hạn", total);
+        }
+    }
+}
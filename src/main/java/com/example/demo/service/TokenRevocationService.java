@@ -0,0 +1,132 @@
+package com.example.demo.service;
+
+import com.example.demo.config.ReplicaRoutingDataSource;
+import com.example.demo.entity.TokenRevocation;
+import com.example.demo.entity.User;
+import com.example.demo.repository.TokenRevocationRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Thu hồi access token theo user: giữ trong bộ nhớ user id -> mốc (epoch mili giây), token có iat_ms trước mốc bị từ chối.
+// Filter chỉ tra một lần trong map, không truy vấn DB. Mốc được lưu vào token_revocations,
+// nạp lại lúc khởi động và đồng bộ định kỳ để các node khác cũng thấy.
+@Service
+public class TokenRevocationService {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    @Autowired
+    private TokenRevocationRepository tokenRevocationRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Value("${jwt.access-token-expiration}")
+    private long accessTokenExpiration;
+
+    // Lùi lại một chút khi đồng bộ để không sót mốc ghi gần lúc đọc (lệch giờ giữa các node)
+    @Value("${token-revocation.sync-overlap-ms:5000}")
+    private long syncOverlapMs;
+
+    private final Map<UUID, Long> revokedBefore = new ConcurrentHashMap<>();
+
+    private volatile Instant lastSync;
+
+    @PostConstruct
+    void init() {
+        Gauge.builder("token.revocations.size", revokedBefore, Map::size).register(meterRegistry);
+        lastSync = Instant.now();
+        // Chỉ mốc còn mới hơn thời hạn access token mới có tác dụng
+        for (TokenRevocation revocation : ReplicaRoutingDataSource.onPrimary(() ->
+                tokenRevocationRepository.findByRevokedBeforeAfter(lastSync.minusMillis(accessTokenExpiration)))) {
+            merge(revocation);
+        }
+        log.info("Đã nạp {} mốc thu hồi token", revokedBefore.size());
+    }
+
+    // Thu hồi mọi token đã phát cho user trước thời điểm hiện tại (mili giây).
+    // Token cấp sau đó, kể cả trong cùng giây (logout rồi login lại), vẫn hợp lệ
+    public void revoke(UUID userId) {
+        long epoch = System.currentTimeMillis();
+        revokedBefore.merge(userId, epoch, Math::max);
+        Instant at = Instant.ofEpochMilli(epoch);
+        if (tokenRevocationRepository.advance(userId, at) == 0) {
+            try {
+                tokenRevocationRepository.insert(userId, at);
+            } catch (DataIntegrityViolationException e) {
+                // Node khác vừa chèn cùng user
+                tokenRevocationRepository.advance(userId, at);
+            }
+        }
+    }
+
+    public boolean isRevoked(UUID userId, Instant issuedAt) {
+        if (userId == null) {
+            return false;
+        }
+        Long epoch = revokedBefore.get(userId);
+        return epoch != null && (issuedAt == null || issuedAt.toEpochMilli() < epoch);
+    }
+
+    // Lấy mốc do node khác ghi, đồng thời bỏ các mốc đã quá thời hạn access token
+    @Scheduled(initialDelayString = "${token-revocation.sync-interval-ms:5000}",
+            fixedDelayString = "${token-revocation.sync-interval-ms:5000}")
+    public void sync() {
+        Instant now = Instant.now();
+        // Đọc primary: replica trễ sẽ làm token bị thu hồi ở node khác còn dùng được thêm một lúc
+        Instant since = lastSync.minusMillis(syncOverlapMs);
+        boolean evicted = false;
+        for (TokenRevocation revocation : ReplicaRoutingDataSource.onPrimary(() ->
+                tokenRevocationRepository.findByRevokedBeforeAfter(since))) {
+            // Mốc mới do node khác ghi (đổi mật khẩu/email/role, xóa user): bản User trong second-level cache
+            // của node này đã cũ. Node ghi đã được Hibernate cập nhật cache nên mốc của chính mình không cần xóa
+            if (merge(revocation)) {
+                entityManagerFactory.getCache().evict(User.class, revocation.getUserId());
+                evicted = true;
+            }
+        }
+        if (evicted) {
+            // Vùng email -> id chỉ xóa được cả vùng; thu hồi hiếm nên chấp nhận
+            entityManagerFactory.unwrap(SessionFactory.class).getCache().evictNaturalIdData(User.class);
+        }
+        lastSync = now;
+
+        long cutoff = now.minusMillis(accessTokenExpiration).toEpochMilli();
+        revokedBefore.values().removeIf(epoch -> epoch < cutoff);
+    }
+
+    @Scheduled(initialDelayString = "${token-revocation.cleanup-interval-ms:3600000}",
+            fixedDelayString = "${token-revocation.cleanup-interval-ms:3600000}")
+    public void cleanup() {
+        int deleted = tokenRevocationRepository.deleteOlderThan(Instant.now().minusMillis(accessTokenExpiration));
+        if (deleted > 0) {
+            log.info("Đã xóa {} mốc thu hồi token hết tác dụng", deleted);
+        }
+    }
+
+    // true nếu mốc mới hơn mốc đang giữ
+    private boolean merge(TokenRevocation revocation) {
+        long epoch = revocation.getRevokedBefore().toEpochMilli();
+        Long previous = revokedBefore.get(revocation.getUserId());
+        revokedBefore.merge(revocation.getUserId(), epoch, Math::max);
+        return previous == null || previous < epoch;
+    }
+}
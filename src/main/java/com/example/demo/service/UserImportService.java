@@ -0,0 +1,304 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ImportReportDTO;
+import com.example.demo.dto.ImportRowError;
+import com.example.demo.dto.UserDTO;
+import com.example.demo.dto.UsersImportedEvent;
+import com.example.demo.dto.ValidationError;
+import com.example.demo.entity.AuditLog;
+import com.example.demo.entity.User;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.security.RoleRegistry;
+import com.example.demo.util.IntegrityViolations;
+import com.example.demo.util.SlugUtil;
+import com.example.demo.validation.UserValidator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+// Import user hàng loạt: đọc stream từng dòng, kiểm tra như register,
+// băm mật khẩu song song và ghi bằng JDBC batch insert theo từng lô
+@Service
+public class UserImportService {
+
+    public enum Format { CSV, JSON_LINES }
+
+    private static final String INSERT_SQL =
+            "insert into users (id, email, password, full_name, slug, phone, role_id, version) values (?, ?, ?, ?, ?, ?, ?, 0)";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRegistry roleRegistry;
+
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    @Autowired
+    private EmailExistenceService emailExistenceService;
+
+    @Autowired
+    private UserValidator userValidator;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private AuditService auditService;
+
+    @Autowired
+    private UserSearchService userSearchService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${user-import.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${user-import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    // clientIp chỉ để ghi audit (null khi không qua HTTP)
+    public ImportReportDTO importUsers(Reader input, Format format, String clientIp) throws IOException {
+        ImportReportDTO report = new ImportReportDTO();
+        Set<String> seenEmails = new HashSet<>();
+        UUID defaultRoleId = roleRegistry.defaultRole().getId();
+
+        BufferedReader reader = new BufferedReader(input);
+        Map<String, Integer> header = null;
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (format == Format.CSV && header == null) {
+                header = parseHeader(line);
+                continue;
+            }
+            report.setTotalRows(report.getTotalRows() + 1);
+
+            UserDTO userDTO;
+            try {
+                userDTO = format == Format.CSV ? fromCsv(header, parseCsvLine(line)) : objectMapper.readValue(line, UserDTO.class);
+            } catch (Exception e) {
+                reject(report, lineNumber, List.of(new ValidationError("row", "Dòng không đúng định dạng")));
+                continue;
+            }
+
+            List<ValidationError> errors = userValidator.validateRegistration(userDTO);
+            if (!UserValidator.hasError(errors, "email") && !seenEmails.add(userDTO.getEmail())) {
+                errors = UserValidator.withError(errors, 0, new ValidationError("email", "Email bị trùng trong file"));
+            }
+            UUID roleId = userDTO.getRole_id();
+            if (roleId != null && roleRegistry.findById(roleId) == null) {
+                errors = UserValidator.withError(errors, errors.size(),
+                        new ValidationError("role_id", "Role với ID " + roleId + " không tồn tại"));
+            }
+            if (!errors.isEmpty()) {
+                reject(report, lineNumber, errors);
+                continue;
+            }
+
+            chunk.add(new ImportRow(lineNumber, userDTO));
+            if (chunk.size() >= chunkSize) {
+                flush(chunk, defaultRoleId, report, clientIp);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            flush(chunk, defaultRoleId, report, clientIp);
+        }
+        return report;
+    }
+
+    private void flush(List<ImportRow> chunk, UUID defaultRoleId, ImportReportDTO report, String clientIp) {
+        // Chỉ hỏi database cho những email Bloom filter báo "có thể có", một truy vấn cho cả lô
+        List<String> candidates = chunk.stream().map(row -> row.user.getEmail())
+                .filter(emailExistenceService::mightExist).toList();
+        Set<String> existing = candidates.isEmpty()
+                ? Set.of() : new HashSet<>(userRepository.findExistingEmails(candidates));
+        List<ImportRow> rows = new ArrayList<>(chunk.size());
+        for (ImportRow row : chunk) {
+            if (existing.contains(row.user.getEmail())) {
+                reject(report, row.line, List.of(new ValidationError("email", "Email đã tồn tại")));
+            } else {
+                rows.add(row);
+            }
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        List<String> hashes = passwordHashingService.encodeAll(rows.stream().map(row -> row.user.getPassword()).toList());
+        List<Object[]> batchArgs = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            batchArgs.add(insertArgs(rows.get(i).user, hashes.get(i), defaultRoleId));
+        }
+
+        rows.forEach(row -> emailExistenceService.record(row.user.getEmail()));
+        List<Object[]> inserted = batchArgs;
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, batchArgs));
+            report.setImported(report.getImported() + rows.size());
+        } catch (DataIntegrityViolationException e) {
+            // Có dòng vi phạm ràng buộc (vd. email vừa được tạo song song): ghi lại từng dòng để biết dòng nào lỗi
+            inserted = new ArrayList<>(rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                try {
+                    jdbcTemplate.update(INSERT_SQL, batchArgs.get(i));
+                    report.setImported(report.getImported() + 1);
+                    inserted.add(batchArgs.get(i));
+                } catch (DataIntegrityViolationException rowError) {
+                    reject(report, rows.get(i).line, List.of(rowError(rowError)));
+                }
+            }
+        }
+        if (inserted.isEmpty()) {
+            return;
+        }
+        // Chỉ mục tìm kiếm nhận cả lô trong một lượt; dashboard admin nhận một tin cho cả lô rồi tự tải lại
+        userSearchService.indexAll(inserted.stream().map(this::toDto).toList());
+        eventPublisher.publishEvent(new UsersImportedEvent(inserted.size()));
+        // Audit từng tài khoản được tạo, như khi admin tạo từng user
+        auditService.recordAll(AuditLog.Action.USER_CREATED, inserted.stream().map(args -> (UUID) args[0]).toList(),
+                clientIp, "import");
+    }
+
+    // Lý do thật của lỗi ràng buộc một dòng, như GlobalExceptionHandler làm với uk_users_email
+    private static ValidationError rowError(DataIntegrityViolationException e) {
+        if (IntegrityViolations.violates(e, User.EMAIL_CONSTRAINT)) {
+            return new ValidationError("email", "Email đã tồn tại");
+        }
+        String column = IntegrityViolations.column(e, "role_id", "full_name", "email", "phone", "slug", "password");
+        String field = column != null ? column : "row";
+        return switch (IntegrityViolations.kind(e)) {
+            case FOREIGN_KEY -> new ValidationError("role_id", "Role không tồn tại");
+            case TOO_LONG -> new ValidationError(field, "Giá trị quá dài");
+            case NOT_NULL -> new ValidationError(field, "Không được để trống");
+            case UNIQUE -> new ValidationError(field, "Giá trị đã tồn tại");
+            default -> new ValidationError(field, "Dữ liệu vi phạm ràng buộc");
+        };
+    }
+
+    // Cùng thứ tự cột với INSERT_SQL / insertArgs
+    private UserDTO toDto(Object[] args) {
+        UUID roleId = (UUID) args[6];
+        UserDTO user = new UserDTO((UUID) args[0], (String) args[1], (String) args[3], (String) args[5],
+                roleId, roleRegistry.findById(roleId).getName(), 0L);
+        user.setSlug((String) args[4]);
+        return user;
+    }
+
+    private Object[] insertArgs(UserDTO user, String passwordHash, UUID defaultRoleId) {
+        return new Object[]{
+                UUID.randomUUID(),
+                user.getEmail(),
+                passwordHash,
+                user.getFull_name(),
+                SlugUtil.generate(user.getFull_name()),
+                user.getPhone(),
+                user.getRole_id() != null ? user.getRole_id() : defaultRoleId
+        };
+    }
+
+    private void reject(ImportReportDTO report, long line, List<ValidationError> errors) {
+        report.setFailed(report.getFailed() + 1);
+        for (ValidationError error : errors) {
+            if (report.getErrors().size() >= maxReportedErrors) {
+                return;
+            }
+            report.getErrors().add(new ImportRowError(line, error.getField(), error.getMessage()));
+        }
+    }
+
+    private static Map<String, Integer> parseHeader(String line) {
+        List<String> columns = parseCsvLine(line);
+        Map<String, Integer> header = new HashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            header.put(columns.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        return header;
+    }
+
+    private static UserDTO fromCsv(Map<String, Integer> header, List<String> values) {
+        UserDTO userDTO = new UserDTO();
+        userDTO.setEmail(column(header, values, "email"));
+        userDTO.setPassword(column(header, values, "password"));
+        userDTO.setFull_name(column(header, values, "full_name"));
+        userDTO.setPhone(column(header, values, "phone"));
+        String roleId = column(header, values, "role_id");
+        userDTO.setRole_id(roleId != null && !roleId.isEmpty() ? UUID.fromString(roleId) : null);
+        return userDTO;
+    }
+
+    private static String column(Map<String, Integer> header, List<String> values, String name) {
+        Integer index = header.get(name);
+        return index != null && index < values.size() ? values.get(index) : null;
+    }
+
+    // CSV một dòng, hỗ trợ trường đặt trong dấu ngoặc kép và "" để escape
+    static List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    private static final class ImportRow {
+        private final long line;
+        private final UserDTO user;
+
+        private ImportRow(long line, UserDTO user) {
+            this.line = line;
+            this.user = user;
+        }
+    }
+}
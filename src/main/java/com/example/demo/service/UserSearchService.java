@@ -0,0 +1,219 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.UserChangeEvent;
+import com.example.demo.dto.UserDTO;
+import com.example.demo.util.UserTrigramIndex;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Tìm kiếm user cho admin trên chỉ mục trigram trong bộ nhớ (họ tên, email, số điện thoại, slug; không phân biệt dấu/hoa thường).
+// Mọi thay đổi chỉ mục (nạp lúc khởi động, UserChangeEvent, import, đồng bộ định kỳ) chạy tuần tự trên một thread riêng:
+// request chỉ xếp việc vào hàng đợi, không khóa và không phải dồn chỉ mục. Tìm kiếm không truy vấn database.
+// Sự kiện chỉ có trong node phát ra nó; thay đổi từ node khác được bắt kịp khi đồng bộ định kỳ theo version.
+@Service
+public class UserSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserSearchService.class);
+
+    private static final String LOAD_SQL = "select u.id, u.email, u.full_name, u.phone, u.slug, r.id, r.name, u.version "
+            + "from users u left join roles r on r.id = u.role_id";
+
+    private static final String VERSIONS_SQL = "select id, version from users";
+
+    // Số id mỗi câu select khi nạp lại các user đã đổi
+    private static final int RELOAD_BATCH = 500;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${user-search.fetch-size:1000}")
+    private int fetchSize;
+
+    // Số ứng viên tối đa được chấm điểm ở bước khớp chuỗi con (truy vấn quá phổ biến không quét cả triệu bản ghi);
+    // khớp nguyên trường và khớp đầu từ không bị chặn
+    @Value("${user-search.max-candidates:1000}")
+    private int maxCandidates;
+
+    private final UserTrigramIndex index = new UserTrigramIndex();
+
+    // Thread ghi duy nhất của chỉ mục
+    private final ExecutorService indexer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "user-search-indexer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile boolean loaded;
+
+    private Timer searchTimer;
+
+    @PostConstruct
+    void init() {
+        searchTimer = Timer.builder("user.search.latency").publishPercentiles(0.5, 0.99).register(meterRegistry);
+        Gauge.builder("user.search.indexed", index, UserTrigramIndex::size).register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        indexer.shutdownNow();
+    }
+
+    // Sự kiện đến trong lúc nạp xếp hàng sau và được áp dụng sau, nên luôn mới hơn dòng đọc từ cursor
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        indexer.execute(this::loadNow);
+    }
+
+    private void loadNow() {
+        long started = System.nanoTime();
+        long[] count = {0};
+        try {
+            stream(LOAD_SQL, rs -> {
+                index.upsert(row(rs));
+                count[0]++;
+            });
+        } catch (RuntimeException e) {
+            // Lần đồng bộ định kỳ kế tiếp sẽ nạp lại
+            log.error("Không nạp được chỉ mục tìm kiếm", e);
+            return;
+        }
+        loaded = true;
+        log.info("Đã nạp {} user vào chỉ mục tìm kiếm trong {} ms", count[0], (System.nanoTime() - started) / 1_000_000);
+    }
+
+    // Sau khi transaction ghi đã commit (không có transaction thì ngay)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChange(UserChangeEvent event) {
+        indexer.execute(() -> {
+            if (event.getType() == UserChangeEvent.Type.DELETED) {
+                index.remove(event.getUserId());
+            } else {
+                index.upsert(event.getUser());
+            }
+        });
+    }
+
+    // Nhiều user mới cùng lúc (import): một lượt trên thread ghi cho cả lô thay vì một việc mỗi user
+    public void indexAll(List<UserDTO> users) {
+        indexer.execute(() -> users.forEach(index::upsert));
+    }
+
+    // Đối chiếu (id, version) với database: nạp lại user mới/đã đổi, xóa user không còn. Bắt kịp thay đổi
+    // do node khác ghi hoặc ghi thẳng vào database
+    @Scheduled(initialDelayString = "${user-search.resync-interval-ms:60000}",
+            fixedDelayString = "${user-search.resync-interval-ms:60000}")
+    public void resync() {
+        // Kiểm tra trên thread ghi: lúc đó lần nạp đầu (xếp hàng trước) đã xong hoặc đã lỗi
+        indexer.execute(() -> {
+            if (!loaded) {
+                loadNow();
+                return;
+            }
+            try {
+                resyncNow();
+            } catch (RuntimeException e) {
+                log.error("Không đồng bộ được chỉ mục tìm kiếm", e);
+            }
+        });
+    }
+
+    private void resyncNow() {
+        long started = System.nanoTime();
+        index.beginSync();
+        List<UUID> stale = new ArrayList<>();
+        stream(VERSIONS_SQL, rs -> {
+            UUID id = rs.getObject(1, UUID.class);
+            if (!index.touch(id, rs.getObject(2, Long.class))) {
+                stale.add(id);
+            }
+        });
+        for (int from = 0; from < stale.size(); from += RELOAD_BATCH) {
+            List<UUID> batch = stale.subList(from, Math.min(from + RELOAD_BATCH, stale.size()));
+            String placeholders = String.join(", ", Collections.nCopies(batch.size(), "?"));
+            jdbcTemplate.query(LOAD_SQL + " where u.id in (" + placeholders + ")",
+                    (ResultSet rs) -> index.upsert(row(rs)), batch.toArray());
+        }
+        int removed = index.removeUntouched();
+        if (!stale.isEmpty() || removed > 0) {
+            log.info("Đồng bộ chỉ mục tìm kiếm: nạp lại {} user, xóa {} user trong {} ms",
+                    stale.size(), removed, (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    // Chờ chỉ mục áp dụng xong mọi thay đổi đã xếp hàng (dùng khi cần tìm thấy ngay, ví dụ trong test)
+    public void flush() {
+        try {
+            indexer.submit(() -> { }).get(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Chỉ mục tìm kiếm không xử lý kịp", e);
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public List<UserDTO> search(String query, int limit) {
+        long started = System.nanoTime();
+        try {
+            return index.search(query, limit, maxCandidates);
+        } finally {
+            searchTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void stream(String sql, RowHandler handler) {
+        JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+        streaming.setFetchSize(fetchSize);
+        // PostgreSQL chỉ stream theo fetch size khi autocommit tắt
+        transactionTemplate.executeWithoutResult(status -> streaming.query(sql, handler::accept));
+    }
+
+    // Cùng thứ tự cột với LOAD_SQL
+    private static UserDTO row(ResultSet rs) throws SQLException {
+        UserDTO user = new UserDTO(rs.getObject(1, UUID.class), rs.getString(2), rs.getString(3),
+                rs.getString(4), rs.getObject(6, UUID.class), rs.getString(7), rs.getObject(8, Long.class));
+        user.setSlug(rs.getString(5));
+        return user;
+    }
+
+    @FunctionalInterface
+    private interface RowHandler {
+        void accept(ResultSet rs) throws SQLException;
+    }
+}
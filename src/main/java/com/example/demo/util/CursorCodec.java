@@ -0,0 +1,43 @@
+package com.example.demo.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+// Mã hóa vị trí keyset (cột và chiều sắp xếp, id, giá trị cột sắp xếp) thành cursor mờ cho client.
+// Cột và chiều được ghi vào cursor để server từ chối cursor dùng với sort/direction khác trang đã tạo ra nó
+public final class CursorCodec {
+
+    private CursorCodec() {
+    }
+
+    // sort|asc hoặc desc|id|giá trị; sortValue null (full_name trống) thì không có phần giá trị
+    public static String encode(String sort, boolean descending, UUID id, String sortValue) {
+        String raw = sort + "|" + (descending ? "desc" : "asc") + "|" + id + (sortValue != null ? "|" + sortValue : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Ném IllegalArgumentException nếu cursor không hợp lệ
+    public static Position decode(String cursor) {
+        String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        // Giá trị cột sắp xếp có thể chứa '|': chỉ tách 3 phần đầu
+        String[] parts = raw.split("\\|", 4);
+        if (parts.length < 3 || (!parts[1].equals("asc") && !parts[1].equals("desc"))) {
+            throw new IllegalArgumentException("Cursor không hợp lệ");
+        }
+        return new Position(parts[0], parts[1].equals("desc"), UUID.fromString(parts[2]),
+                parts.length == 4 ? parts[3] : null);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static final class Position {
+        private final String sort;
+        private final boolean descending;
+        private final UUID id;
+        private final String sortValue;
+    }
+}
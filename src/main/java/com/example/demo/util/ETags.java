@@ -0,0 +1,46 @@
+package com.example.demo.util;
+
+import java.util.UUID;
+
+// ETag mạnh cho User: "id-version", đổi mỗi khi user được cập nhật
+public final class ETags {
+
+    private ETags() {
+    }
+
+    public static String of(UUID id, Long version) {
+        return "\"" + id + "-" + (version != null ? version : 0) + "\"";
+    }
+
+    // If-None-Match: so sánh yếu (bỏ qua tiền tố W/), chấp nhận danh sách và *
+    public static boolean noneMatchHits(String ifNoneMatch, String etag) {
+        return matches(ifNoneMatch, etag, true);
+    }
+
+    // If-Match: so sánh mạnh, ETag yếu không bao giờ khớp
+    public static boolean matchHits(String ifMatch, String etag) {
+        return matches(ifMatch, etag, false);
+    }
+
+    private static boolean matches(String header, String etag, boolean weak) {
+        if (header == null) {
+            return false;
+        }
+        for (String candidate : header.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                if (!weak) {
+                    continue;
+                }
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.demo.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Bloom filter không khóa cho email: chỉ bật bit (CAS), không bao giờ xóa.
+// mightContain == false nghĩa là chắc chắn chưa có; true thì phải hỏi database.
+public final class EmailBloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+
+    public EmailBloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        long bits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (bits + 63) / 64));
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = (long) wordCount * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+    }
+
+    public void put(String email) {
+        long hash1 = hash(email);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(hash1 + i * hash2, bitCount);
+            int index = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long word = words.get(index);
+            while ((word & mask) == 0 && !words.compareAndSet(index, word, word | mask)) {
+                word = words.get(index);
+            }
+        }
+    }
+
+    public boolean mightContain(String email) {
+        long hash1 = hash(email);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(hash1 + i * hash2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Tỉ lệ bit đã bật, dùng để theo dõi khi filter bị đầy dần (email bị đổi/xóa vẫn còn bit)
+    public double saturation() {
+        long set = 0;
+        for (int i = 0; i < words.length(); i++) {
+            set += Long.bitCount(words.get(i));
+        }
+        return (double) set / bitCount;
+    }
+
+    public long bitCount() {
+        return bitCount;
+    }
+
+    public int hashCount() {
+        return hashCount;
+    }
+
+    // FNV-1a 64 bit trên từng ký tự, sau đó trộn lại để phân bố đều
+    private static long hash(String value) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        value *= 0xC4CEB9FE1A85EC53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.demo.util;
+
+import java.sql.SQLException;
+import java.util.Locale;
+
+// Phân loại lỗi vi phạm ràng buộc của database (qua Hibernate hoặc JdbcTemplate) theo tên ràng buộc và SQLState
+public final class IntegrityViolations {
+
+    public enum Kind { UNIQUE, FOREIGN_KEY, NOT_NULL, TOO_LONG, OTHER }
+
+    private IntegrityViolations() {
+    }
+
+    public static boolean violates(Throwable ex, String constraint) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof org.hibernate.exception.ConstraintViolationException violation
+                    && constraint.equalsIgnoreCase(violation.getConstraintName())) {
+                return true;
+            }
+            String message = cause.getMessage();
+            if (message != null && message.toLowerCase(Locale.ROOT).contains(constraint)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // SQLState chuẩn, PostgreSQL và H2 giống nhau (H2 báo thiếu dòng cha bằng 23506)
+    public static Kind kind(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sql && sql.getSQLState() != null) {
+                return switch (sql.getSQLState()) {
+                    case "23505" -> Kind.UNIQUE;
+                    case "23503", "23506" -> Kind.FOREIGN_KEY;
+                    case "23502" -> Kind.NOT_NULL;
+                    case "22001" -> Kind.TOO_LONG;
+                    default -> Kind.OTHER;
+                };
+            }
+        }
+        return Kind.OTHER;
+    }
+
+    // Cột đầu tiên trong columns được driver nhắc tới trong thông báo lỗi, null nếu không có (PostgreSQL không nêu
+    // tên cột khi giá trị quá dài). Bỏ phần câu SQL mà Spring/H2 ghép vào, vì nó chứa mọi cột của câu insert
+    public static String column(Throwable ex, String... columns) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (!(cause instanceof SQLException) || cause.getMessage() == null) {
+                continue;
+            }
+            String message = cause.getMessage().toLowerCase(Locale.ROOT);
+            int statement = message.indexOf("sql statement");
+            String detail = statement >= 0 ? message.substring(0, statement) : message;
+            for (String column : columns) {
+                if (detail.contains(column)) {
+                    return column;
+                }
+            }
+        }
+        return null;
+    }
+}
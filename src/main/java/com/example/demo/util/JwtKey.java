@@ -0,0 +1,55 @@
+package com.example.demo.util;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.SecureDigestAlgorithm;
+import lombok.Getter;
+import lombok.ToString;
+
+import javax.crypto.SecretKey;
+import java.security.Key;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.time.Instant;
+
+// Một khóa trong key ring, định danh bằng kid (header JWT).
+// signingKey null nghĩa là node này chỉ được verify (chỉ có public key/certificate).
+@Getter
+@ToString(of = {"kid", "algorithm", "createdAt"})
+public final class JwtKey {
+    private final String kid;
+    private final String algorithm;
+    private final Key signingKey;
+    private final Key verificationKey;
+    private final Instant createdAt;
+
+    private JwtKey(String kid, String algorithm, Key signingKey, Key verificationKey, Instant createdAt) {
+        this.kid = kid;
+        this.algorithm = algorithm;
+        this.signingKey = signingKey;
+        this.verificationKey = verificationKey;
+        this.createdAt = createdAt;
+    }
+
+    public static JwtKey hmac(String kid, SecretKey key, Instant createdAt) {
+        return new JwtKey(kid, Jwts.SIG.HS256.getId(), key, key, createdAt);
+    }
+
+    // ES256 (EC P-256) hoặc RS256 tùy loại khóa; privateKey null nếu chỉ verify
+    public static JwtKey asymmetric(String kid, PrivateKey privateKey, PublicKey publicKey, Instant createdAt) {
+        String algorithm = switch (publicKey.getAlgorithm()) {
+            case "EC" -> Jwts.SIG.ES256.getId();
+            case "RSA" -> Jwts.SIG.RS256.getId();
+            default -> throw new IllegalArgumentException("Không hỗ trợ khóa " + publicKey.getAlgorithm() + " cho kid " + kid);
+        };
+        return new JwtKey(kid, algorithm, privateKey, publicKey, createdAt);
+    }
+
+    public boolean canSign() {
+        return signingKey != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    SecureDigestAlgorithm<Key, ?> signatureAlgorithm() {
+        return (SecureDigestAlgorithm<Key, ?>) Jwts.SIG.get().forKey(algorithm);
+    }
+}
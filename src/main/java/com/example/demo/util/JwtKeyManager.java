@@ -0,0 +1,150 @@
+package com.example.demo.util;
+
+import io.jsonwebtoken.Jwts;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.cert.Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.UUID;
+
+// Nạp key ring JWT từ keystore PKCS12 (alias = kid) và/hoặc danh sách khóa HMAC trong cấu hình,
+// nạp lại định kỳ để xoay khóa không cần restart. Không cấu hình gì thì sinh khóa HS256 ngẫu nhiên
+// (token mất hiệu lực khi restart, chỉ dùng khi dev với một node).
+//
+// Xoay khóa: thêm khóa mới vào keystore trên mọi node -> sau activation-delay kể từ ngày tạo khóa
+// mọi node cùng chuyển sang ký bằng khóa mới; khóa cũ vẫn verify được cho tới khi bị xóa khỏi keystore
+// (nên giữ ít nhất bằng thời hạn access token).
+@Component
+public class JwtKeyManager {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtKeyManager.class);
+
+    @Value("${jwt.keys.keystore-path:}")
+    private String keystorePath;
+
+    @Value("${jwt.keys.keystore-password:}")
+    private String keystorePassword;
+
+    // "kid:base64,kid:base64", mỗi khóa tối thiểu 256 bit
+    @Value("${jwt.keys.hmac:}")
+    private String hmacKeys;
+
+    @Value("${jwt.keys.active-kid:}")
+    private String activeKid;
+
+    @Value("${jwt.keys.activation-delay-ms:300000}")
+    private long activationDelayMs;
+
+    private volatile JwtKeyRing ring;
+
+    @PostConstruct
+    public void init() {
+        List<JwtKey> keys = loadKeys();
+        if (keys.isEmpty()) {
+            String kid = "ephemeral-" + UUID.randomUUID();
+            keys = List.of(JwtKey.hmac(kid, Jwts.SIG.HS256.key().build(), Instant.EPOCH));
+            log.warn("Chưa cấu hình jwt.keys.*: dùng khóa HS256 ngẫu nhiên {}, token mất hiệu lực khi restart", kid);
+        }
+        install(keys);
+    }
+
+    // Nạp lại nguồn khóa và chọn lại khóa active (khóa mới có thể vừa qua activation-delay)
+    @Scheduled(initialDelayString = "${jwt.keys.reload-interval-ms:60000}",
+            fixedDelayString = "${jwt.keys.reload-interval-ms:60000}")
+    public void reload() {
+        if (keystorePath.isBlank() && hmacKeys.isBlank()) {
+            return;
+        }
+        try {
+            install(loadKeys());
+        } catch (RuntimeException e) {
+            // Giữ key ring cũ nếu nguồn khóa đang lỗi (vd. file keystore đang được ghi)
+            log.error("Không nạp lại được khóa JWT, giữ key ring hiện tại", e);
+        }
+    }
+
+    public JwtKeyRing current() {
+        return ring;
+    }
+
+    private void install(List<JwtKey> keys) {
+        JwtKeyRing next = JwtKeyRing.of(keys, activeKid, Duration.ofMillis(activationDelayMs), Instant.now());
+        JwtKeyRing previous = ring;
+        ring = next;
+        if (previous == null || !describe(previous).equals(describe(next))) {
+            log.info("Key ring JWT: {}", describe(next));
+        }
+    }
+
+    private static String describe(JwtKeyRing ring) {
+        String active = ring.getActive() != null ? ring.getActive().getKid() : "(chỉ verify)";
+        return "khóa ký " + active + ", verify " + ring.keys().stream().map(JwtKey::getKid).sorted().toList();
+    }
+
+    private List<JwtKey> loadKeys() {
+        List<JwtKey> keys = new ArrayList<>();
+        if (!hmacKeys.isBlank()) {
+            for (String entry : hmacKeys.split(",")) {
+                String[] parts = entry.trim().split(":", 2);
+                if (parts.length != 2) {
+                    throw new IllegalArgumentException("jwt.keys.hmac phải có dạng kid:base64");
+                }
+                SecretKey key = new SecretKeySpec(Base64.getDecoder().decode(parts[1].trim()), "HmacSHA256");
+                // Khóa trong cấu hình không có ngày tạo: coi như đã active từ lâu, chọn bằng active-kid
+                keys.add(JwtKey.hmac(parts[0].trim(), key, Instant.EPOCH));
+            }
+        }
+        if (!keystorePath.isBlank()) {
+            keys.addAll(loadKeystore(Path.of(keystorePath), keystorePassword.toCharArray()));
+        }
+        return keys;
+    }
+
+    private static List<JwtKey> loadKeystore(Path path, char[] password) {
+        try (InputStream in = Files.newInputStream(path)) {
+            KeyStore keyStore = KeyStore.getInstance("PKCS12");
+            keyStore.load(in, password);
+            List<JwtKey> keys = new ArrayList<>();
+            Enumeration<String> aliases = keyStore.aliases();
+            while (aliases.hasMoreElements()) {
+                String alias = aliases.nextElement();
+                Instant createdAt = keyStore.getCreationDate(alias).toInstant();
+                if (keyStore.isKeyEntry(alias)) {
+                    Key key = keyStore.getKey(alias, password);
+                    if (key instanceof SecretKey secretKey) {
+                        keys.add(JwtKey.hmac(alias, secretKey, createdAt));
+                    } else if (key instanceof PrivateKey privateKey) {
+                        keys.add(JwtKey.asymmetric(alias, privateKey, keyStore.getCertificate(alias).getPublicKey(), createdAt));
+                    }
+                } else {
+                    // Chỉ có certificate: node biên chỉ verify, không giữ khóa ký
+                    Certificate certificate = keyStore.getCertificate(alias);
+                    keys.add(JwtKey.asymmetric(alias, null, certificate.getPublicKey(), createdAt));
+                }
+            }
+            return keys;
+        } catch (IOException | GeneralSecurityException e) {
+            throw new IllegalStateException("Không đọc được keystore JWT " + path, e);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.demo.util;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+// Snapshot bất biến của các khóa JWT: một khóa active để ký, mọi khóa đều dùng để verify theo kid
+public final class JwtKeyRing {
+
+    // Khóa mới nhất (createdAt, rồi kid) được ưu tiên
+    private static final Comparator<JwtKey> NEWEST_LAST =
+            Comparator.comparing(JwtKey::getCreatedAt).thenComparing(JwtKey::getKid);
+
+    private final Map<String, JwtKey> keys;
+    private final JwtKey active;
+
+    private JwtKeyRing(Map<String, JwtKey> keys, JwtKey active) {
+        this.keys = keys;
+        this.active = active;
+    }
+
+    // Chọn khóa ký: activeKid nếu được chỉ định, nếu không là khóa ký mới nhất đã qua activationDelay
+    // kể từ createdAt (để mọi node kịp nạp khóa mới trước khi có token ký bằng nó).
+    // Chưa khóa nào qua activationDelay thì dùng khóa ký cũ nhất.
+    public static JwtKeyRing of(Collection<JwtKey> keys, String activeKid, Duration activationDelay, Instant now) {
+        Map<String, JwtKey> byKid = new HashMap<>();
+        for (JwtKey key : keys) {
+            if (byKid.put(key.getKid(), key) != null) {
+                throw new IllegalArgumentException("Trùng kid " + key.getKid());
+            }
+        }
+
+        JwtKey active;
+        if (activeKid != null && !activeKid.isBlank()) {
+            active = byKid.get(activeKid);
+            if (active == null || !active.canSign()) {
+                throw new IllegalArgumentException("Không có khóa ký với kid " + activeKid);
+            }
+        } else {
+            Instant activatedBefore = now.minus(activationDelay);
+            active = keys.stream()
+                    .filter(JwtKey::canSign)
+                    .filter(key -> !key.getCreatedAt().isAfter(activatedBefore))
+                    .max(NEWEST_LAST)
+                    .orElseGet(() -> keys.stream().filter(JwtKey::canSign).min(NEWEST_LAST).orElse(null));
+        }
+        return new JwtKeyRing(Map.copyOf(byKid), active);
+    }
+
+    // null nếu node chỉ được verify
+    public JwtKey getActive() {
+        return active;
+    }
+
+    public JwtKey get(String kid) {
+        return kid != null ? keys.get(kid) : null;
+    }
+
+    public Collection<JwtKey> keys() {
+        return keys.values();
+    }
+}
@@ -1,87 +1,179 @@
 package com.example.demo.util;
 
+import com.example.demo.entity.User;
+import com.example.demo.security.AppUserDetails;
+import com.example.demo.security.CustomUserDetailsService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.security.InvalidKeyException;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.UUID;
 
 @Component
 public class JwtUtil {
 
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLES = "roles";
+    // iat chuẩn chỉ tới giây; mốc thu hồi so sánh theo mili giây để token cấp ngay sau khi thu hồi vẫn dùng được
+    public static final String CLAIM_ISSUED_AT_MS = "iat_ms";
+
     @Value("${jwt.access-token-expiration}")
     private Long accessTokenExpiration;
 
-    @Value("${jwt.refresh-token-expiration}")
-    private Long refreshTokenExpiration;
+    // Số token đã verify được giữ trong cache
+    @Value("${jwt.verified-cache-size:10000}")
+    private long verifiedCacheSize;
+
+    @Autowired
+    private JwtKeyManager keyManager;
+
+    // JwtParser là thread-safe, dựng một lần và dùng lại; khóa verify được chọn theo kid trong key ring hiện tại
+    private final JwtParser jwtParser;
 
-    private final SecretKey secretKey;
+    // Cache token đã verify, key là SHA-256 của token, hết hạn đúng lúc token hết hạn
+    private Cache<ByteBuffer, VerifiedToken> verifiedTokens;
 
-    // Khởi tạo secretKey bằng Keys.secretKeyFor
     public JwtUtil() {
-        this.secretKey = Keys.secretKeyFor(SignatureAlgorithm.HS256); // Tạo khóa ký an toàn cho HS256
+        this.jwtParser = Jwts.parser().keyLocator(new LocatorAdapter<Key>() {
+            @Override
+            protected Key locate(JwsHeader header) {
+                JwtKey key = keyManager.current().get(header.getKeyId());
+                if (key == null) {
+                    throw new InvalidKeyException("Không có khóa cho kid " + header.getKeyId());
+                }
+                return key.getVerificationKey();
+            }
+        }).build();
     }
 
-    // Tạo access token
-    public String generateAccessToken(String email) {
-        Map<String, Object> claims = new HashMap<>();
-        return createToken(claims, email, accessTokenExpiration);
+    @PostConstruct
+    void initCache() {
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfter(new Expiry<ByteBuffer, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(ByteBuffer key, VerifiedToken token, long currentTime) {
+                        return Math.max(0, Duration.between(Instant.now(), token.getExpiration()).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(ByteBuffer key, VerifiedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(ByteBuffer key, VerifiedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    // Tạo access token, kèm user id và quyền để filter không phải nạp lại user từ DB
+    public String generateAccessToken(User user) {
+        return generateAccessToken(user.getId(), user.getEmail(),
+                List.of(CustomUserDetailsService.authorityOf(user.getRole())));
+    }
+
+    // Tạo access token từ principal đã xác thực (login), không cần entity User
+    public String generateAccessToken(AppUserDetails principal) {
+        List<String> roles = new ArrayList<>(principal.getAuthorities().size());
+        for (GrantedAuthority authority : principal.getAuthorities()) {
+            roles.add(authority.getAuthority());
+        }
+        return generateAccessToken(principal.getId(), principal.getUsername(), roles);
     }
 
-    // Tạo refresh token
-    public String generateRefreshToken(String email) {
+    private String generateAccessToken(UUID userId, String email, List<String> roles) {
         Map<String, Object> claims = new HashMap<>();
-        return createToken(claims, email, refreshTokenExpiration);
+        claims.put(CLAIM_USER_ID, userId.toString());
+        claims.put(CLAIM_ROLES, roles);
+        return createToken(claims, email, accessTokenExpiration);
     }
 
     private String createToken(Map<String, Object> claims, String subject, Long expiration) {
+        JwtKey key = keyManager.current().getActive();
+        if (key == null) {
+            throw new IllegalStateException("Node này không có khóa ký JWT (chỉ verify)");
+        }
+        long now = System.currentTimeMillis();
         return Jwts.builder()
-                .setClaims(claims)
-                .setSubject(subject)
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(secretKey, SignatureAlgorithm.HS256) // Sử dụng secretKey
+                .header().keyId(key.getKid()).and()
+                .claims(claims)
+                .claim(CLAIM_ISSUED_AT_MS, now)
+                .subject(subject)
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + expiration))
+                .signWith(key.getSigningKey(), key.signatureAlgorithm())
                 .compact();
     }
 
-    // Lấy email từ token
-    public String extractEmail(String token) {
-        return extractClaim(token, Claims::getSubject);
+    // Verify chữ ký + hạn dùng đúng một lần cho mỗi token, các lần sau lấy từ cache.
+    // Ném JwtException nếu token không hợp lệ hoặc đã hết hạn
+    public VerifiedToken verify(String token) {
+        VerifiedToken verified = verifiedTokens.get(digest(token), key -> VerifiedToken.from(parse(token)));
+        if (verified.isExpired()) {
+            throw new ExpiredJwtException(null, null, "JWT expired at " + verified.getExpiration());
+        }
+        // Khóa đã bị gỡ khỏi key ring thì token trong cache cũng hết hiệu lực
+        if (keyManager.current().get(verified.getKid()) == null) {
+            verifiedTokens.invalidate(digest(token));
+            throw new InvalidKeyException("Khóa " + verified.getKid() + " đã bị gỡ khỏi key ring");
+        }
+        return verified;
     }
 
-    // Lấy thông tin claim từ token
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    // Lấy email từ token
+    public String extractEmail(String token) {
+        return verify(token).getSubject();
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(secretKey) // Sử dụng secretKey để verify
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    private Jws<Claims> parse(String token) {
+        return jwtParser.parseSignedClaims(token);
     }
 
     // Kiểm tra token có hết hạn không
     public Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        return verify(token).isExpired();
     }
 
     // Kiểm tra token hợp lệ
     public Boolean validateToken(String token, String email) {
-        final String extractedEmail = extractEmail(token);
-        return (extractedEmail.equals(email) && !isTokenExpired(token));
+        VerifiedToken verified = verify(token);
+        return verified.getSubject().equals(email) && !verified.isExpired();
+    }
+
+    private static ByteBuffer digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return ByteBuffer.wrap(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 không khả dụng", e);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,76 @@
+package com.example.demo.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+// Ring buffer giới hạn, nhiều producer - một consumer, không khóa.
+// Mỗi ô có số thứ tự riêng: producer giành ô bằng CAS trên tail rồi mới ghi phần tử và công bố số thứ tự;
+// consumer chỉ đọc ô đã được công bố, nên không bao giờ thấy phần tử ghi dở.
+public final class MpscRingBuffer<T> {
+
+    private final int mask;
+    private final AtomicReferenceArray<T> elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    // Chỉ consumer ghi; volatile để size() đọc được từ thread khác
+    private volatile long head;
+
+    public MpscRingBuffer(int requestedCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(2, requestedCapacity) - 1) << 1;
+        this.mask = capacity - 1;
+        this.elements = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    // false khi buffer đầy
+    public boolean offer(T element) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) (position & mask);
+            long sequence = sequences.get(index);
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements.lazySet(index, element);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (sequence < position) {
+                return false;
+            }
+            // sequence > position: producer khác vừa giành ô này, đọc lại tail
+        }
+    }
+
+    // Chỉ gọi từ thread consumer. Trả về số phần tử đã lấy
+    public int drain(Consumer<? super T> consumer, int limit) {
+        int drained = 0;
+        long position = head;
+        while (drained < limit) {
+            int index = (int) (position & mask);
+            if (sequences.get(index) != position + 1) {
+                break;
+            }
+            T element = elements.get(index);
+            elements.lazySet(index, null);
+            sequences.set(index, position + mask + 1);
+            position++;
+            drained++;
+            consumer.accept(element);
+        }
+        head = position;
+        return drained;
+    }
+
+    public int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.demo.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+public final class SlugUtil {
+
+    private SlugUtil() {
+    }
+
+    // Tạo slug từ họ tên kèm 3 số ngẫu nhiên, ví dụ "nguyễn-văn-an-042"
+    public static String generate(String fullName) {
+        String baseSlug = fullName.toLowerCase().replace(" ", "-");
+        int randomNumber = ThreadLocalRandom.current().nextInt(1000);
+        return baseSlug + "-" + String.format("%03d", randomNumber);
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.demo.util;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+// Chuẩn hóa chuỗi để tìm kiếm: bỏ dấu tiếng Việt (kể cả đ -> d), chữ thường,
+// mọi ký tự không phải chữ/số thành một dấu cách. "Nguyễn Văn-Đạt" -> "nguyen van dat"
+public final class TextFolding {
+
+    private TextFolding() {
+    }
+
+    public static String fold(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (c == 'đ' || c == 'Đ') {
+                c = 'd';
+            }
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && folded.length() > 0) {
+                    folded.append(' ');
+                }
+                pendingSpace = false;
+                folded.append(Character.toLowerCase(c));
+            } else {
+                pendingSpace = true;
+            }
+        }
+        return folded.toString().toLowerCase(Locale.ROOT);
+    }
+}
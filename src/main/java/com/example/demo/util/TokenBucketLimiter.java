@@ -0,0 +1,87 @@
+package com.example.demo.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Token bucket theo key (IP, email...) không khóa: trạng thái mỗi bucket là một AtomicLong,
+// lấy token bằng một CAS. Bucket nằm trong Caffeine (bảng băm phân đoạn) có giới hạn số key;
+// bucket không được dùng trong thời gian nạp đầy lại bị bỏ vì khi đó nó y như bucket mới.
+public final class TokenBucketLimiter {
+
+    private final long capacity;
+    // Thời gian nạp lại một token (nano giây)
+    private final long refillNanos;
+    private final LongSupplier clock;
+    private final Cache<String, AtomicLong> buckets;
+
+    public TokenBucketLimiter(long capacity, Duration refillPeriod, long maxKeys) {
+        this(capacity, refillPeriod, maxKeys, System::nanoTime);
+    }
+
+    public TokenBucketLimiter(long capacity, Duration refillPeriod, long maxKeys, LongSupplier clock) {
+        if (capacity < 1 || refillPeriod.isNegative() || refillPeriod.isZero()) {
+            throw new IllegalArgumentException("capacity và refillPeriod phải lớn hơn 0");
+        }
+        this.capacity = capacity;
+        this.refillNanos = refillPeriod.toNanos();
+        this.clock = clock;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(refillNanos * capacity, TimeUnit.NANOSECONDS)
+                .ticker(clock::getAsLong)
+                .executor(Runnable::run)
+                .build();
+    }
+
+    // Lấy một token cho key. Trả về 0 nếu được phép, ngược lại là số nano giây phải chờ đến khi có token.
+    // Trạng thái lưu là thời điểm bucket đầy trở lại (full-at): còn (full-at - now) / refill token đã bị dùng.
+    public long tryAcquire(String key) {
+        AtomicLong fullAt = buckets.get(key, k -> new AtomicLong(Long.MIN_VALUE));
+        long limit = refillNanos * capacity;
+        while (true) {
+            long now = clock.getAsLong();
+            long current = fullAt.get();
+            long base = current == Long.MIN_VALUE || current - now < 0 ? now : current;
+            long next = base + refillNanos;
+            long wait = next - now - limit;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    // Giá trị Retry-After (giây, làm tròn lên, ít nhất 1) cho thời gian chờ tryAcquire trả về
+    public static long retryAfterSeconds(long waitNanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos - 1) + 1);
+    }
+
+    // Số token còn lại của key (để theo dõi/kiểm thử)
+    public long available(String key) {
+        AtomicLong fullAt = buckets.getIfPresent(key);
+        if (fullAt == null) {
+            return capacity;
+        }
+        long used = fullAt.get() - clock.getAsLong();
+        if (fullAt.get() == Long.MIN_VALUE || used <= 0) {
+            return capacity;
+        }
+        return capacity - (used + refillNanos - 1) / refillNanos;
+    }
+
+    public long trackedKeys() {
+        buckets.cleanUp();
+        return buckets.estimatedSize();
+    }
+
+    public long capacity() {
+        return capacity;
+    }
+}
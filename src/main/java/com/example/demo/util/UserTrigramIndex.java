@@ -0,0 +1,427 @@
+package com.example.demo.util;
+
+import com.example.demo.dto.UserDTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Chỉ mục trigram trong bộ nhớ cho tìm kiếm user theo họ tên, email, số điện thoại, slug (đã bỏ dấu).
+// Mỗi bản ghi có một doc id tăng dần; mỗi trigram giữ danh sách doc id đã sắp xếp (chỉ nối thêm vào cuối).
+// Truy vấn >= 3 ký tự: giao các danh sách trigram (bắt đầu từ danh sách ngắn nhất) rồi kiểm tra chuỗi con;
+// 1-2 ký tự: khớp đầu từ. Mỗi trường còn có khóa đầu trường và cuối trường để tìm riêng các bản ghi khớp nguyên trường. Cập nhật không đổi nội dung tìm kiếm thì thay tại chỗ, còn lại = đánh dấu doc cũ
+// đã xóa + thêm doc mới (giữ nguyên thứ hạng của user); dồn lại khi doc chết quá nhiều.
+// Chỉ một thread ghi (không khóa, người gọi bảo đảm), nhiều thread đọc không khóa: phần tử được ghi trước
+// khi size (volatile) được công bố.
+public final class UserTrigramIndex {
+
+    // Ngăn cách giữa các trường trong chuỗi tìm kiếm, không bao giờ xuất hiện trong truy vấn đã chuẩn hóa
+    private static final char FIELD_SEPARATOR = '\n';
+
+    private static final int SCORE_SUBSTRING = 1;
+    private static final int SCORE_WORD_PREFIX = 2;
+    private static final int SCORE_EXACT = 3;
+
+    private volatile State state = new State(1024);
+    // Các trường dưới đây chỉ thread ghi dùng, trừ liveCount
+    private final Map<UUID, Integer> docByUser = new HashMap<>();
+    private int deadDocs;
+    // Thứ hạng khi cùng điểm: user được đưa vào chỉ mục trước đứng trước, giữ nguyên qua các lần cập nhật
+    private long nextRank;
+    // Lần đồng bộ hiện tại (beginSync/touch/removeUntouched)
+    private int generation;
+    private volatile int liveCount;
+
+    public void upsert(UserDTO user) {
+        State current = state;
+        Integer previous = docByUser.get(user.getId());
+        if (previous == null) {
+            docByUser.put(user.getId(), current.add(new Entry(user, nextRank++, generation)));
+            liveCount = docByUser.size();
+            return;
+        }
+        Entry old = current.docs[previous];
+        Entry entry = new Entry(user, old.rank, generation);
+        if (entry.text.equals(old.text)) {
+            // Cùng nội dung tìm kiếm (vd. chỉ đổi role, version): cùng trigram, thay tại chỗ
+            current.docs[previous] = entry;
+            return;
+        }
+        current.docs[previous] = null;
+        deadDocs++;
+        // Doc mới nằm sau các doc có thứ hạng lớn hơn nó: công bố trước khi thêm vào danh sách trigram
+        current.lastRelocatedDoc = current.count;
+        docByUser.put(user.getId(), current.add(entry));
+        compactIfNeeded();
+    }
+
+    public void remove(UUID userId) {
+        Integer previous = docByUser.remove(userId);
+        if (previous != null) {
+            state.docs[previous] = null;
+            deadDocs++;
+            liveCount = docByUser.size();
+            compactIfNeeded();
+        }
+    }
+
+    public int size() {
+        return liveCount;
+    }
+
+    // Đồng bộ lại với database: beginSync, touch từng dòng (id, version) đọc được, upsert các dòng touch trả về false,
+    // rồi removeUntouched xóa user không còn trong database
+    public void beginSync() {
+        generation++;
+    }
+
+    // true nếu user đã có trong chỉ mục với đúng version này; đánh dấu user còn tồn tại
+    public boolean touch(UUID userId, Long version) {
+        Integer doc = docByUser.get(userId);
+        if (doc == null) {
+            return false;
+        }
+        Entry entry = state.docs[doc];
+        entry.generation = generation;
+        return Objects.equals(entry.user.getVersion(), version);
+    }
+
+    // Trả về số user đã xóa
+    public int removeUntouched() {
+        List<UUID> missing = new ArrayList<>();
+        State current = state;
+        for (Map.Entry<UUID, Integer> e : docByUser.entrySet()) {
+            if (current.docs[e.getValue()].generation != generation) {
+                missing.add(e.getKey());
+            }
+        }
+        missing.forEach(this::remove);
+        return missing.size();
+    }
+
+    // Tối đa limit kết quả, ưu tiên khớp nguyên trường > khớp đầu từ > chuỗi con; cùng điểm thì bản ghi cũ hơn trước.
+    // Quét lần lượt từng mức điểm: khớp nguyên trường và khớp đầu từ luôn đúng top limit (quét tới khi chắc chắn
+    // không còn bản ghi tốt hơn). maxCandidates chỉ chặn số ứng viên khớp chuỗi con được chấm điểm, để độ trễ có
+    // chặn trên với truy vấn rất phổ biến: phần kết quả chỉ khớp chuỗi con có thể bỏ sót (gần đúng)
+    public List<UserDTO> search(String query, int limit, int maxCandidates) {
+        String q = TextFolding.fold(query);
+        if (q.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        State current = state;
+        Posting[] postings = postingsFor(current, q);
+        if (postings == null) {
+            return List.of();
+        }
+
+        PriorityQueue<Hit> top = new PriorityQueue<>(limit + 1, Hit.WORST_FIRST);
+        char beforeLast = q.length() > 1 ? q.charAt(q.length() - 2) : ' ';
+        scan(current, with(current, postings, key(FIELD_SEPARATOR, FIELD_SEPARATOR, q.charAt(0)),
+                key(beforeLast, q.charAt(q.length() - 1), FIELD_SEPARATOR)), q, top, limit, SCORE_EXACT, Integer.MAX_VALUE);
+        if (q.length() < 3) {
+            // Danh sách của truy vấn ngắn đã là danh sách đầu từ, và truy vấn ngắn không khớp chuỗi con
+            scan(current, postings, q, top, limit, SCORE_WORD_PREFIX, Integer.MAX_VALUE);
+        } else {
+            scan(current, with(current, postings, key(' ', q.charAt(0), q.charAt(1))), q, top, limit,
+                    SCORE_WORD_PREFIX, Integer.MAX_VALUE);
+            scan(current, postings, q, top, limit, SCORE_SUBSTRING, maxCandidates);
+        }
+
+        List<Hit> hits = new ArrayList<>(top);
+        hits.sort(Hit.WORST_FIRST.reversed());
+        List<UserDTO> results = new ArrayList<>(hits.size());
+        for (Hit hit : hits) {
+            results.add(hit.user);
+        }
+        return results;
+    }
+
+    // Thêm vào top các doc trong giao của postings có đúng điểm score (mức cao hơn đã được quét trước đó).
+    // postings null: mức này không có ứng viên
+    private static void scan(State current, Posting[] postings, String q, PriorityQueue<Hit> top, int limit,
+                             int score, int maxCandidates) {
+        if (postings == null || (top.size() == limit && top.peek().score > score)) {
+            return;
+        }
+        Arrays.sort(postings, Comparator.comparingInt(Posting::size));
+        Posting driver = postings[0];
+        int driverSize = driver.size();
+        int[] driverIds = driver.ids;
+        int[] cursors = new int[postings.length];
+        int scored = 0;
+        for (int i = 0; i < driverSize && scored < maxCandidates; i++) {
+            int doc = driverIds[i];
+            if (!inAll(postings, cursors, doc)) {
+                continue;
+            }
+            Entry entry = current.docs[doc];
+            if (entry == null) {
+                continue;
+            }
+            int entryScore = entry.score(q);
+            if (entryScore == 0) {
+                continue;
+            }
+            scored++;
+            if (entryScore != score) {
+                continue;
+            }
+            top.add(new Hit(entry.rank, score, entry.user));
+            if (top.size() > limit) {
+                top.poll();
+            }
+            // Đã đủ limit kết quả từ mức này trở lên và các doc còn lại đều có thứ hạng sau: không thể tốt hơn nữa.
+            // Đọc lastRelocatedDoc sau size của danh sách trigram nên thấy mọi doc dời chỗ mà vòng lặp có thể gặp
+            if (top.size() == limit && top.peek().score >= score && doc >= current.lastRelocatedDoc) {
+                return;
+            }
+        }
+    }
+
+    // postings cộng thêm danh sách của các khóa, null nếu có khóa không có trong chỉ mục
+    private static Posting[] with(State current, Posting[] postings, long... keys) {
+        Posting[] result = Arrays.copyOf(postings, postings.length + keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            Posting posting = current.postings.get(keys[i]);
+            if (posting == null) {
+                return null;
+            }
+            result[postings.length + i] = posting;
+        }
+        return result;
+    }
+
+    private static Posting[] postingsFor(State current, String q) {
+        if (q.length() < 3) {
+            Posting posting = current.postings.get(q.length() == 1 ? key(' ', ' ', q.charAt(0)) : key(' ', q.charAt(0), q.charAt(1)));
+            return posting != null ? new Posting[]{posting} : null;
+        }
+        Map<Long, Posting> distinct = new HashMap<>();
+        for (int i = 0; i + 3 <= q.length(); i++) {
+            long key = key(q.charAt(i), q.charAt(i + 1), q.charAt(i + 2));
+            Posting posting = current.postings.get(key);
+            if (posting == null) {
+                return null;
+            }
+            distinct.put(key, posting);
+        }
+        return distinct.values().toArray(new Posting[0]);
+    }
+
+    // Danh sách tăng dần và doc của danh sách dẫn cũng tăng dần: mỗi con trỏ chỉ tiến về phía trước
+    private static boolean inAll(Posting[] postings, int[] cursors, int doc) {
+        for (int p = 1; p < postings.length; p++) {
+            Posting posting = postings[p];
+            int size = posting.size();
+            int found = gallop(posting.ids, cursors[p], size, doc);
+            if (found < 0) {
+                cursors[p] = -found - 1;
+                return false;
+            }
+            cursors[p] = found + 1;
+        }
+        return true;
+    }
+
+    // Tìm kiếm lũy thừa từ con trỏ: với danh sách dày, doc cần tìm thường chỉ cách vài phần tử
+    private static int gallop(int[] ids, int from, int size, int doc) {
+        if (from >= size) {
+            return -size - 1;
+        }
+        if (ids[from] >= doc) {
+            return ids[from] == doc ? from : -from - 1;
+        }
+        int bound = 1;
+        while (from + bound < size && ids[from + bound] < doc) {
+            bound <<= 1;
+        }
+        return Arrays.binarySearch(ids, from + (bound >> 1) + 1, Math.min(from + bound + 1, size), doc);
+    }
+
+    private void compactIfNeeded() {
+        State current = state;
+        if (deadDocs < 10_000 || deadDocs * 4L < current.count) {
+            return;
+        }
+        // Xếp lại doc theo thứ hạng: doc id tăng dần lại trùng thứ hạng, không còn doc dời chỗ
+        List<Entry> live = new ArrayList<>(docByUser.size());
+        for (int doc = 0; doc < current.count; doc++) {
+            if (current.docs[doc] != null) {
+                live.add(current.docs[doc]);
+            }
+        }
+        live.sort(Comparator.comparingLong(entry -> entry.rank));
+        State compacted = new State(Math.max(1024, docByUser.size() * 2));
+        for (Entry entry : live) {
+            docByUser.put(entry.user.getId(), compacted.add(entry));
+        }
+        state = compacted;
+        deadDocs = 0;
+    }
+
+    private static long key(char a, char b, char c) {
+        return ((long) a << 32) | ((long) b << 16) | c;
+    }
+
+    private static final class State {
+        // Trigram -> doc ids; ConcurrentHashMap để đọc song song khi writer thêm trigram mới
+        private final Map<Long, Posting> postings = new ConcurrentHashMap<>();
+        private volatile Entry[] docs;
+        private int count;
+        // Doc lớn nhất chứa user được thêm lại sau khi cập nhật (thứ hạng nhỏ hơn doc đứng trước), -1 nếu không có
+        private volatile int lastRelocatedDoc = -1;
+
+        private State(int capacity) {
+            this.docs = new Entry[capacity];
+        }
+
+        private int add(Entry entry) {
+            if (count == docs.length) {
+                docs = Arrays.copyOf(docs, count * 2);
+            }
+            int doc = count++;
+            docs[doc] = entry;
+            for (long key : entry.keys()) {
+                postings.computeIfAbsent(key, k -> new Posting()).append(doc);
+            }
+            return doc;
+        }
+    }
+
+    private static final class Posting {
+        private volatile int[] ids = new int[4];
+        private volatile int size;
+
+        // Chỉ writer gọi. Ghi phần tử (và mảng mới nếu phải nới) trước rồi mới tăng size
+        private void append(int doc) {
+            int[] current = ids;
+            int n = size;
+            if (n == current.length) {
+                current = Arrays.copyOf(current, n + (n >> 1) + 1);
+                current[n] = doc;
+                ids = current;
+            } else {
+                current[n] = doc;
+            }
+            size = n + 1;
+        }
+
+        private int size() {
+            return size;
+        }
+    }
+
+    private static final class Entry {
+        private final UserDTO user;
+        private final long rank;
+        // Các trường đã bỏ dấu, nối bằng FIELD_SEPARATOR
+        private final String text;
+        // Chỉ thread ghi dùng
+        private int generation;
+
+        private Entry(UserDTO user, long rank, int generation) {
+            this.user = user;
+            this.rank = rank;
+            this.generation = generation;
+            StringBuilder text = new StringBuilder();
+            for (String field : new String[]{user.getFull_name(), user.getEmail(), user.getPhone(), user.getSlug()}) {
+                String folded = TextFolding.fold(field);
+                if (!folded.isEmpty()) {
+                    if (text.length() > 0) {
+                        text.append(FIELD_SEPARATOR);
+                    }
+                    text.append(folded);
+                }
+            }
+            this.text = text.toString();
+        }
+
+        // Trigram của từng trường (đệm dấu cách ở đầu để có trigram đầu từ), khóa 1 ký tự đầu mỗi từ,
+        // khóa đầu trường (FIELD_SEPARATOR, FIELD_SEPARATOR, ký tự đầu) và cuối trường (2 ký tự cuối, FIELD_SEPARATOR),
+        // không trùng lặp
+        private long[] keys() {
+            long[] keys = new long[text.length() * 4 + 4];
+            int n = 0;
+            char a = ' ';
+            char b = ' ';
+            for (int i = 0; i <= text.length(); i++) {
+                char c = i < text.length() ? text.charAt(i) : FIELD_SEPARATOR;
+                if (c == FIELD_SEPARATOR) {
+                    keys[n++] = key(a, b, FIELD_SEPARATOR);
+                    a = ' ';
+                    b = ' ';
+                    continue;
+                }
+                if (i == 0 || text.charAt(i - 1) == FIELD_SEPARATOR) {
+                    keys[n++] = key(FIELD_SEPARATOR, FIELD_SEPARATOR, c);
+                }
+                keys[n++] = key(a, b, c);
+                if (b == ' ' && c != ' ') {
+                    keys[n++] = key(' ', ' ', c);
+                }
+                a = b;
+                b = c;
+            }
+            Arrays.sort(keys, 0, n);
+            int distinct = 0;
+            for (int i = 0; i < n; i++) {
+                if (distinct == 0 || keys[i] != keys[distinct - 1]) {
+                    keys[distinct++] = keys[i];
+                }
+            }
+            return Arrays.copyOf(keys, distinct);
+        }
+
+        private int score(String q) {
+            int best = 0;
+            int from = 0;
+            while (from <= text.length()) {
+                int end = text.indexOf(FIELD_SEPARATOR, from);
+                if (end < 0) {
+                    end = text.length();
+                }
+                best = Math.max(best, scoreField(from, end, q));
+                from = end + 1;
+            }
+            return best;
+        }
+
+        private int scoreField(int from, int end, String q) {
+            if (end - from == q.length() && text.startsWith(q, from)) {
+                return SCORE_EXACT;
+            }
+            int best = 0;
+            for (int at = text.indexOf(q, from); at >= 0 && at + q.length() <= end; at = text.indexOf(q, at + 1)) {
+                if (at == from || text.charAt(at - 1) == ' ') {
+                    return SCORE_WORD_PREFIX;
+                }
+                best = SCORE_SUBSTRING;
+            }
+            // Truy vấn 1-2 ký tự chỉ khớp đầu từ
+            return q.length() < 3 ? 0 : best;
+        }
+    }
+
+    private static final class Hit {
+        // Điểm thấp trước, cùng điểm thì user mới hơn (thứ hạng lớn) trước: phần tử đầu hàng đợi là phần tử bị loại
+        private static final Comparator<Hit> WORST_FIRST =
+                Comparator.comparingInt((Hit hit) -> hit.score).thenComparingLong(hit -> -hit.rank);
+
+        private final long rank;
+        private final int score;
+        private final UserDTO user;
+
+        private Hit(long rank, int score, UserDTO user) {
+            this.rank = rank;
+            this.score = score;
+            this.user = user;
+        }
+    }
+}
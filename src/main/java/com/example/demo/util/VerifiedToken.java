@@ -0,0 +1,53 @@
+package com.example.demo.util;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+// Kết quả verify một JWT: bất biến, an toàn để cache và chia sẻ giữa các thread
+@Getter
+@ToString
+public final class VerifiedToken {
+    private final String kid;
+    private final String subject;
+    private final UUID userId;
+    private final List<String> roles;
+    private final Instant issuedAt;
+    private final Instant expiration;
+
+    private VerifiedToken(String kid, String subject, UUID userId, List<String> roles, Instant issuedAt, Instant expiration) {
+        this.kid = kid;
+        this.subject = subject;
+        this.userId = userId;
+        this.roles = roles;
+        this.issuedAt = issuedAt;
+        this.expiration = expiration;
+    }
+
+    static VerifiedToken from(Jws<Claims> jws) {
+        Claims claims = jws.getPayload();
+        String userId = claims.get(JwtUtil.CLAIM_USER_ID, String.class);
+        List<?> roles = claims.get(JwtUtil.CLAIM_ROLES, List.class);
+        // Token cũ không có iat_ms: dùng iat (giây)
+        Long issuedAtMs = claims.get(JwtUtil.CLAIM_ISSUED_AT_MS, Long.class);
+        Instant issuedAt = issuedAtMs != null ? Instant.ofEpochMilli(issuedAtMs)
+                : claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null;
+        return new VerifiedToken(
+                jws.getHeader().getKeyId(),
+                claims.getSubject(),
+                userId != null ? UUID.fromString(userId) : null,
+                roles != null ? roles.stream().map(String::valueOf).toList() : null,
+                issuedAt,
+                claims.getExpiration().toInstant()
+        );
+    }
+
+    public boolean isExpired() {
+        return !expiration.isAfter(Instant.now());
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.demo.validation;
+
+// Quy tắc đã biên dịch cho một trường: quét giá trị đúng một lần,
+// trả về message lỗi (hằng số, không cấp phát) hoặc null nếu hợp lệ
+@FunctionalInterface
+public interface FieldRule {
+    String check(String value);
+}
@@ -0,0 +1,144 @@
+package com.example.demo.validation;
+
+// Các scanner một lượt thay cho EMAIL_PATTERN, FULL_NAME_PATTERN, PHONE_PATTERN và containsEmoji.
+// Thứ tự ưu tiên message giữ như register cũ: trống -> khoảng trắng -> định dạng
+public final class Rules {
+
+    public static final String EMAIL_REQUIRED = "Email không được để trống";
+    public static final String EMAIL_WHITESPACE = "Email không được chứa khoảng trắng";
+    public static final String EMAIL_INVALID = "Email không hợp lệ";
+
+    public static final String NAME_REQUIRED = "Tên không được để trống";
+    public static final String NAME_UNTRIMMED = "Tên không được chứa khoảng trắng ở đầu hoặc cuối";
+    public static final String NAME_INVALID = "Tên chỉ được chứa chữ cái, số và khoảng trắng giữa các từ";
+    public static final String NAME_EMOJI = "Tên không được chứa icon hoặc emoji";
+
+    public static final String PHONE_REQUIRED = "Số điện thoại không được để trống";
+    public static final String PHONE_INVALID = "Số điện thoại không hợp lệ. Phải bắt đầu bằng +84 hoặc 0, theo sau là 9 hoặc 10 chữ số";
+
+    public static final String PASSWORD_REQUIRED = "Mật khẩu không được để trống";
+
+    private Rules() {
+    }
+
+    // ^[\w-\.]+@([\w-]+\.)+[\w-]{2,4}$, khoảng trắng ở bất kỳ đâu được báo riêng
+    public static final FieldRule EMAIL = value -> {
+        if (value == null || value.isEmpty()) {
+            return EMAIL_REQUIRED;
+        }
+        int length = value.length();
+        int at = -1;
+        int labelStart = -1;
+        int dots = 0;
+        boolean invalid = false;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == ' ') {
+                return EMAIL_WHITESPACE;
+            }
+            if (invalid) {
+                continue;
+            }
+            if (at < 0) {
+                if (c == '@') {
+                    invalid = i == 0;
+                    at = i;
+                    labelStart = i + 1;
+                } else {
+                    invalid = !isWordChar(c) && c != '-' && c != '.';
+                }
+            } else if (c == '.') {
+                invalid = i == labelStart;
+                labelStart = i + 1;
+                dots++;
+            } else {
+                invalid = !isWordChar(c) && c != '-';
+            }
+        }
+        int lastLabel = length - labelStart;
+        if (invalid || at < 0 || dots == 0 || lastLabel < 2 || lastLabel > 4) {
+            return EMAIL_INVALID;
+        }
+        return null;
+    };
+
+    // ^[A-Za-zÀ-ỹ0-9]+( [A-Za-zÀ-ỹ0-9]+)*$ sau khi đã kiểm tra trim, duyệt theo code point để nhận ra emoji
+    public static final FieldRule FULL_NAME = value -> {
+        if (value == null || value.isEmpty()) {
+            return NAME_REQUIRED;
+        }
+        int length = value.length();
+        // String.trim() bỏ mọi ký tự <= U+0020 ở hai đầu
+        if (value.charAt(0) <= ' ' || value.charAt(length - 1) <= ' ') {
+            return NAME_UNTRIMMED;
+        }
+        boolean invalid = false;
+        boolean previousSpace = false;
+        for (int i = 0; i < length; ) {
+            int codePoint = value.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (codePoint == ' ') {
+                invalid |= previousSpace;
+                previousSpace = true;
+            } else if (isNameChar(codePoint)) {
+                previousSpace = false;
+            } else if (isEmoji(codePoint)) {
+                return NAME_EMOJI;
+            } else {
+                invalid = true;
+            }
+        }
+        return invalid ? NAME_INVALID : null;
+    };
+
+    // ^(?:\+84|0)\d{9,10}$
+    public static final FieldRule PHONE = value -> {
+        if (value == null || value.isEmpty()) {
+            return PHONE_REQUIRED;
+        }
+        int start;
+        if (value.startsWith("+84")) {
+            start = 3;
+        } else if (value.charAt(0) == '0') {
+            start = 1;
+        } else {
+            return PHONE_INVALID;
+        }
+        int digits = value.length() - start;
+        if (digits < 9 || digits > 10) {
+            return PHONE_INVALID;
+        }
+        for (int i = start; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return PHONE_INVALID;
+            }
+        }
+        return null;
+    };
+
+    public static final FieldRule PASSWORD = value -> value == null || value.isEmpty() ? PASSWORD_REQUIRED : null;
+
+    // Bỏ qua trường không được gửi (null hoặc rỗng), chỉ kiểm tra khi có giá trị
+    public static FieldRule optional(FieldRule rule) {
+        return value -> value == null || value.isEmpty() ? null : rule.check(value);
+    }
+
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    private static boolean isNameChar(int codePoint) {
+        return (codePoint >= 'a' && codePoint <= 'z')
+                || (codePoint >= 'A' && codePoint <= 'Z')
+                || (codePoint >= '0' && codePoint <= '9')
+                || (codePoint >= 0x00C0 && codePoint <= 0x1EF9); // À-ỹ
+    }
+
+    private static boolean isEmoji(int codePoint) {
+        return (codePoint >= 0x1F600 && codePoint <= 0x1F64F) || // Emoticons
+                (codePoint >= 0x1F300 && codePoint <= 0x1F5FF) || // Misc Symbols and Pictographs
+                (codePoint >= 0x1F680 && codePoint <= 0x1F6FF) || // Transport and Map Symbols
+                (codePoint >= 0x1F1E6 && codePoint <= 0x1F1FF);   // Flags
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.demo.validation;
+
+import com.example.demo.dto.UserDTO;
+import com.example.demo.dto.ValidationError;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Kiểm tra định dạng dùng chung cho register, admin create/update và import hàng loạt (không truy vấn DB).
+// Kết quả bất biến khi hợp lệ; dùng withError để thêm lỗi phát hiện sau (vd. email đã tồn tại)
+@Component
+public class UserValidator {
+
+    private static final ValidationEngine<UserDTO> REGISTRATION = ValidationEngine.<UserDTO>builder()
+            .field("email", UserDTO::getEmail, Rules.EMAIL)
+            .field("full_name", UserDTO::getFull_name, Rules.FULL_NAME)
+            .field("phone", UserDTO::getPhone, Rules.PHONE)
+            .field("password", UserDTO::getPassword, Rules.PASSWORD)
+            .build();
+
+    // Cập nhật: email và tên bắt buộc, số điện thoại và mật khẩu chỉ kiểm tra khi được gửi
+    private static final ValidationEngine<UserDTO> UPDATE = ValidationEngine.<UserDTO>builder()
+            .field("email", UserDTO::getEmail, Rules.EMAIL)
+            .field("full_name", UserDTO::getFull_name, Rules.FULL_NAME)
+            .field("phone", UserDTO::getPhone, Rules.optional(Rules.PHONE))
+            .build();
+
+    // Dùng cho register, admin create và import
+    public List<ValidationError> validateRegistration(UserDTO userDTO) {
+        return REGISTRATION.validate(userDTO);
+    }
+
+    public List<ValidationError> validateUpdate(UserDTO userDTO) {
+        return UPDATE.validate(userDTO);
+    }
+
+    public static boolean hasError(List<ValidationError> errors, String field) {
+        for (ValidationError error : errors) {
+            if (error.getField().equals(field)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Trả về danh sách mới có error ở vị trí index
+    public static List<ValidationError> withError(List<ValidationError> errors, int index, ValidationError error) {
+        List<ValidationError> result = new ArrayList<>(errors.size() + 1);
+        result.addAll(errors);
+        result.add(index, error);
+        return result;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.demo.validation;
+
+import com.example.demo.dto.ValidationError;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+// Tập quy tắc đã biên dịch cho một loại đối tượng. Khi hợp lệ không cấp phát gì,
+// chỉ tạo danh sách lỗi khi có trường sai
+public final class ValidationEngine<T> {
+
+    private final String[] fields;
+    private final List<Function<T, String>> accessors;
+    private final FieldRule[] rules;
+
+    private ValidationEngine(List<String> fields, List<Function<T, String>> accessors, List<FieldRule> rules) {
+        this.fields = fields.toArray(new String[0]);
+        this.accessors = List.copyOf(accessors);
+        this.rules = rules.toArray(new FieldRule[0]);
+    }
+
+    // Danh sách lỗi theo thứ tự khai báo trường; List.of() (bất biến) nếu hợp lệ
+    public List<ValidationError> validate(T target) {
+        List<ValidationError> errors = null;
+        for (int i = 0; i < rules.length; i++) {
+            String message = rules[i].check(accessors.get(i).apply(target));
+            if (message != null) {
+                if (errors == null) {
+                    errors = new ArrayList<>(rules.length);
+                }
+                errors.add(new ValidationError(fields[i], message));
+            }
+        }
+        return errors != null ? errors : List.of();
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    public static final class Builder<T> {
+        private final List<String> fields = new ArrayList<>();
+        private final List<Function<T, String>> accessors = new ArrayList<>();
+        private final List<FieldRule> rules = new ArrayList<>();
+
+        public Builder<T> field(String name, Function<T, String> accessor, FieldRule rule) {
+            fields.add(name);
+            accessors.add(accessor);
+            rules.add(rule);
+            return this;
+        }
+
+        public ValidationEngine<T> build() {
+            return new ValidationEngine<>(fields, accessors, rules);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.demo.api;
+
+import com.example.demo.entity.User;
+import com.example.demo.repository.RefreshTokenRepository;
+import com.example.demo.repository.RoleRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.support.SqlStatementCounter;
+import com.example.demo.support.TestUsers;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Login dùng lại principal đã xác thực và xoay refresh token bằng update (insert khi chưa có dòng): không nạp lại user, không delete
+@SpringBootTest(properties = "jwt.auth-mode=stateless")
+@AutoConfigureMockMvc
+class LoginQueryCountTest {
+
+    private static final String PASSWORD = "Matkhau@123";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = TestUsers.save(roleRepository, userRepository, "customer", passwordEncoder.encode(PASSWORD), "Lê Văn Cường");
+    }
+
+    @Test
+    void firstLoginInsertsRefreshTokenWithoutReloadingUser() throws Exception {
+        List<String> statements = login();
+
+        assertTrue(statements.size() <= 3, () -> "Login đầu vượt 3 câu lệnh: " + statements);
+        assertEquals(1, count(statements, "insert into refresh_tokens"), () -> statements.toString());
+        assertLoginShape(statements);
+    }
+
+    @Test
+    void repeatLoginRotatesRefreshTokenWithOneUpdate() throws Exception {
+        login();
+        String firstHash = refreshTokenRepository.findAll().stream()
+                .filter(t -> t.getUserId().equals(user.getId())).findFirst().orElseThrow().getTokenHash();
+
+        List<String> statements = login();
+
+        assertTrue(statements.size() <= 2, () -> "Login lại vượt 2 câu lệnh: " + statements);
+        assertEquals(0, count(statements, "insert into refresh_tokens"), () -> statements.toString());
+        assertEquals(1, count(statements, "update refresh_tokens"), () -> statements.toString());
+        assertLoginShape(statements);
+
+        List<String> hashes = refreshTokenRepository.findAll().stream()
+                .filter(t -> t.getUserId().equals(user.getId())).map(t -> t.getTokenHash()).toList();
+        assertEquals(1, hashes.size());
+        assertNotEquals(firstHash, hashes.get(0));
+    }
+
+    // Câu native xoay refresh token không được làm Hibernate xóa cả second-level cache
+    @Test
+    void loginKeepsSecondLevelCache() throws Exception {
+        User other = TestUsers.save(roleRepository, userRepository, "customer", "x", "Phạm Thị Dung");
+        assertTrue(entityManagerFactory.getCache().contains(User.class, other.getId()));
+
+        login();
+        login();
+
+        assertTrue(entityManagerFactory.getCache().contains(User.class, other.getId()));
+    }
+
+    private List<String> login() throws Exception {
+        SqlStatementCounter.reset();
+        String body = mockMvc.perform(post("/api/users/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"" + user.getEmail() + "\",\"password\":\"" + PASSWORD + "\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<String> statements = SqlStatementCounter.statements();
+
+        JsonNode response = objectMapper.readTree(body);
+        assertTrue(response.hasNonNull("accessToken"));
+        mockMvc.perform(post("/api/users/refresh-token")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\":\"" + response.get("refreshToken").asText() + "\"}"))
+                .andExpect(status().isOk());
+        return statements;
+    }
+
+    private static void assertLoginShape(List<String> statements) {
+        assertEquals(0, count(statements, "delete "), () -> "Login không được delete: " + statements);
+        assertTrue(count(statements, " from users ") <= 1, () -> "User bị nạp nhiều lần: " + statements);
+    }
+
+    private static long count(List<String> statements, String fragment) {
+        return statements.stream().filter(sql -> sql.toLowerCase(Locale.ROOT).contains(fragment)).count();
+    }
+}
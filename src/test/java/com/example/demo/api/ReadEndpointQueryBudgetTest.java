@@ -0,0 +1,149 @@
+package com.example.demo.api;
+
+import com.example.demo.dto.UserChangeEvent;
+import com.example.demo.entity.User;
+import com.example.demo.repository.RoleRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.service.UserSearchService;
+import com.example.demo.support.SqlStatementCounter;
+import com.example.demo.support.TestUsers;
+import com.example.demo.util.ETags;
+import com.example.demo.util.JwtUtil;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Ngân sách SQL cho mỗi endpoint đọc: vượt số câu lệnh hoặc số cột select là build fail.
+// StatementInspector cho nội dung câu SQL (đếm cột, không select password); Hibernate Statistics kiểm tra thêm
+// rằng endpoint đọc bằng DTO projection không dựng entity User nào, kể cả entity lấy từ L2 cache (không sinh SQL)
+@SpringBootTest(properties = "jwt.auth-mode=stateless")
+@AutoConfigureMockMvc
+class ReadEndpointQueryBudgetTest {
+
+    // UserDTO projection: id, email, full_name, phone, role id, role name (+ version cho ETag)
+    private static final int DTO_COLUMNS = 7;
+
+    // Probe If-None-Match: id, version
+    private static final int VERSION_COLUMNS = 2;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private UserSearchService userSearchService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User admin;
+    private String adminToken;
+
+    @BeforeEach
+    void setUp() {
+        admin = TestUsers.user(TestUsers.role(roleRepository, "admin"), "$2a$10$hash", "Trần Thị Bình");
+        admin.setPhone("0912345678");
+        userRepository.save(admin);
+        adminToken = jwtUtil.generateAccessToken(admin);
+    }
+
+    @Test
+    void getByEmailStaysWithinBudget() throws Exception {
+        assertWithinBudget(get("/api/users/get-by-email/" + admin.getEmail()), 1, DTO_COLUMNS);
+    }
+
+    @Test
+    void getByIdStaysWithinBudget() throws Exception {
+        assertWithinBudget(get("/api/admin/users/get-by-id/" + admin.getId()), 1, DTO_COLUMNS);
+    }
+
+    @Test
+    void getAllStaysWithinBudget() throws Exception {
+        assertWithinBudget(get("/api/admin/users/get-all?limit=20&role=admin"), 1, DTO_COLUMNS);
+    }
+
+    @Test
+    void searchNeedsNoSql() throws Exception {
+        eventPublisher.publishEvent(UserChangeEvent.created(admin));
+        userSearchService.flush();
+        assertWithinBudget(get("/api/admin/users/search").param("q", "TRAN thi binh").param("limit", "100"), 0, 0);
+
+        mockMvc.perform(get("/api/admin/users/search").param("q", admin.getEmail().substring(0, 8))
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].email").value(admin.getEmail()));
+    }
+
+    @Test
+    void notModifiedReadsOnlyVersion() throws Exception {
+        String etag = mockMvc.perform(get("/api/users/get-by-email/" + admin.getEmail())
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertEquals(ETags.of(admin.getId(), 0L), etag);
+
+        assertWithinBudget(get("/api/users/get-by-email/" + admin.getEmail()).header("If-None-Match", etag),
+                status().isNotModified(), 1, VERSION_COLUMNS);
+        assertWithinBudget(get("/api/admin/users/get-by-id/" + admin.getId()).header("If-None-Match", etag),
+                status().isNotModified(), 1, VERSION_COLUMNS);
+    }
+
+    private void assertWithinBudget(MockHttpServletRequestBuilder request, int maxStatements, int maxColumns)
+            throws Exception {
+        assertWithinBudget(request, status().isOk(), maxStatements, maxColumns);
+    }
+
+    private void assertWithinBudget(MockHttpServletRequestBuilder request, ResultMatcher expectedStatus,
+                                    int maxStatements, int maxColumns) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        assertTrue(statistics.isStatisticsEnabled(), "Cần hibernate.generate_statistics=true");
+        statistics.clear();
+        SqlStatementCounter.reset();
+        mockMvc.perform(request.header("Authorization", "Bearer " + adminToken))
+                .andExpect(expectedStatus);
+
+        assertTrue(statistics.getPrepareStatementCount() <= maxStatements,
+                () -> "Hibernate chuẩn bị " + statistics.getPrepareStatementCount() + " câu lệnh, ngân sách " + maxStatements);
+        assertEquals(0, statistics.getEntityLoadCount(), "Endpoint đọc không được nạp entity");
+        assertEquals(0, statistics.getSecondLevelCacheHitCount(), "Endpoint đọc không được dựng entity từ L2 cache");
+
+        List<String> statements = SqlStatementCounter.statements();
+        assertTrue(statements.size() <= maxStatements,
+                () -> "Vượt ngân sách " + maxStatements + " câu lệnh: " + statements);
+        for (String sql : statements) {
+            int columns = SqlStatementCounter.selectedColumns(sql);
+            assertTrue(columns <= maxColumns, () -> "Select " + columns + " cột, ngân sách " + maxColumns + ": " + sql);
+            assertFalse(sql.toLowerCase(Locale.ROOT).contains("password"), () -> "Không được select password: " + sql);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.demo.api;
+
+import com.example.demo.dto.UserChangeEvent;
+import com.example.demo.service.TokenRevocationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.HashMap;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+
+// Handler với session giả: một session gửi bị treo (client không đọc) không được làm chậm hay ngắt session khác
+class UserDirectoryWebSocketHandlerTest {
+
+    private static final int EVENTS = 200;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    // Lượt gửi của session bị treo chờ latch này, chỉ được thả khi session bị đóng
+    private final CountDownLatch stalledRelease = new CountDownLatch(1);
+    private final CountDownLatch stalledClosed = new CountDownLatch(1);
+    private UserDirectoryWebSocketHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        handler = new UserDirectoryWebSocketHandler();
+        ReflectionTestUtils.setField(handler, "sendTimeLimitMs", 200L);
+        ReflectionTestUtils.setField(handler, "bufferSizeLimit", 1_000_000L);
+        ReflectionTestUtils.setField(handler, "sendQueueCapacity", 50);
+        ReflectionTestUtils.setField(handler, "objectMapper", new ObjectMapper().registerModule(new JavaTimeModule()));
+        ReflectionTestUtils.setField(handler, "tokenRevocationService", Mockito.mock(TokenRevocationService.class));
+        ReflectionTestUtils.setField(handler, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.invokeMethod(handler, "init");
+    }
+
+    @AfterEach
+    void tearDown() {
+        stalledRelease.countDown();
+        handler.shutdown();
+    }
+
+    @Test
+    void blockedSessionIsDisconnectedWithoutDelayingOthers() throws Exception {
+        WebSocketSession stalled = session("stalled");
+        Mockito.doAnswer(invocation -> {
+            stalledRelease.await(10, TimeUnit.SECONDS);
+            throw new IllegalStateException("closed");
+        }).when(stalled).sendMessage(any());
+        Mockito.doAnswer(invocation -> {
+            stalledClosed.countDown();
+            stalledRelease.countDown();
+            return null;
+        }).when(stalled).close(any());
+
+        Semaphore received = new Semaphore(0);
+        WebSocketSession healthy = session("healthy");
+        Mockito.doAnswer(invocation -> {
+            received.release();
+            return null;
+        }).when(healthy).sendMessage(any());
+
+        handler.afterConnectionEstablished(stalled);
+        handler.afterConnectionEstablished(healthy);
+
+        // Nhiều hơn send-queue-capacity, với tốc độ session khỏe theo kịp: chỉ hàng đợi riêng của session treo đầy
+        for (int i = 0; i < EVENTS; i++) {
+            handler.onUserChange(UserChangeEvent.deleted(UUID.randomUUID()));
+            assertTrue(received.tryAcquire(5, TimeUnit.SECONDS), "session khỏe bị chặn ở tin " + i);
+        }
+
+        assertTrue(stalledClosed.await(10, TimeUnit.SECONDS));
+        Mockito.verify(stalled).close(CloseStatus.SERVICE_OVERLOAD);
+        Mockito.verify(healthy, Mockito.never()).close(any());
+        assertEquals(1.0, meterRegistry.counter("websocket.admin-users.disconnects", "reason", "slow_consumer").count());
+        assertEquals(1.0, meterRegistry.get("websocket.admin-users.sessions").gauge().value());
+    }
+
+    @Test
+    void watchdogClosesSendStalledPastTimeLimit() throws Exception {
+        WebSocketSession stalled = session("stalled");
+        CountDownLatch sending = new CountDownLatch(1);
+        Mockito.doAnswer(invocation -> {
+            sending.countDown();
+            stalledRelease.await(10, TimeUnit.SECONDS);
+            throw new IllegalStateException("closed");
+        }).when(stalled).sendMessage(any());
+        Mockito.doAnswer(invocation -> {
+            stalledClosed.countDown();
+            stalledRelease.countDown();
+            return null;
+        }).when(stalled).close(any());
+        handler.afterConnectionEstablished(stalled);
+
+        // Một tin duy nhất, không đầy hàng đợi: chỉ watchdog mới phát hiện được lượt gửi bị treo
+        handler.onUserChange(UserChangeEvent.deleted(UUID.randomUUID()));
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+        handler.closeStalledSessions();
+        Mockito.verify(stalled, Mockito.never()).close(any());
+
+        Thread.sleep(300);
+        handler.closeStalledSessions();
+        assertTrue(stalledClosed.await(5, TimeUnit.SECONDS));
+        Mockito.verify(stalled).close(CloseStatus.SERVICE_OVERLOAD);
+        assertEquals(0.0, meterRegistry.get("websocket.admin-users.sessions").gauge().value());
+    }
+
+    private static WebSocketSession session(String id) {
+        WebSocketSession session = Mockito.mock(WebSocketSession.class);
+        Mockito.when(session.getId()).thenReturn(id);
+        Mockito.when(session.getAttributes()).thenReturn(new HashMap<>());
+        return session;
+    }
+}
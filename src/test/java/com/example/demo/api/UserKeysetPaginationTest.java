@@ -0,0 +1,181 @@
+package com.example.demo.api;
+
+import com.example.demo.entity.User;
+import com.example.demo.repository.RoleRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.support.TestUsers;
+import com.example.demo.util.JwtUtil;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Keyset pagination của /api/admin/users/get-all: duyệt từng trang nhỏ phải ra đúng một trang lớn,
+// không sót/lặp ở ranh giới trang (kể cả họ tên trùng nhau và họ tên null)
+@SpringBootTest(properties = "jwt.auth-mode=stateless")
+@AutoConfigureMockMvc
+class UserKeysetPaginationTest {
+
+    // Mỗi user có email bắt đầu bằng prefix riêng của lần chạy, không lẫn dữ liệu của test khác
+    private static final String[][] USERS = {
+            {"customer", "Bùi Văn An"},
+            {"customer", "Đỗ Thị Hoa"},
+            {"admin", "Đỗ Thị Hoa"},
+            {"customer", null},
+            {"customer", "Lý Minh"},
+            {"admin", null},
+            {"customer", "Đỗ Thị Hoa"},
+            {"customer", null},
+            {"admin", "Cao Văn Tùng"},
+    };
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    private String prefix;
+    private String adminToken;
+
+    @BeforeEach
+    void setUp() {
+        prefix = "page-" + UUID.randomUUID().toString().substring(0, 8) + "-";
+        for (int i = 0; i < USERS.length; i++) {
+            User user = TestUsers.user(TestUsers.role(roleRepository, USERS[i][0]), "x", USERS[i][1]);
+            user.setEmail(prefix + (char) ('a' + (i * 5) % USERS.length) + "@example.com");
+            userRepository.save(user);
+        }
+        User admin = TestUsers.save(roleRepository, userRepository, "admin", "x", "Quản Trị");
+        adminToken = jwtUtil.generateAccessToken(admin);
+    }
+
+    @Test
+    void fullNameAscendingKeepsNullsLast() throws Exception {
+        List<JsonNode> rows = allPages("sort=full_name&direction=asc", 2);
+
+        assertEquals(USERS.length, rows.size());
+        assertSameAsSinglePage(rows, "sort=full_name&direction=asc");
+        List<String> names = fullNames(rows);
+        assertEquals(names.stream().sorted(Comparator.nullsLast(Comparator.naturalOrder())).toList(), names);
+        assertNull(names.get(names.size() - 1));
+    }
+
+    @Test
+    void fullNameDescendingKeepsNullsFirst() throws Exception {
+        List<JsonNode> rows = allPages("sort=full_name&direction=desc", 2);
+
+        assertEquals(USERS.length, rows.size());
+        assertSameAsSinglePage(rows, "sort=full_name&direction=desc");
+        List<String> names = fullNames(rows);
+        assertEquals(names.stream().sorted(Comparator.nullsFirst(Comparator.<String>reverseOrder())).toList(), names);
+        assertNull(names.get(0));
+    }
+
+    @Test
+    void emailPagesInBothDirections() throws Exception {
+        for (int limit = 1; limit <= USERS.length + 1; limit++) {
+            List<String> ascending = emails(allPages("sort=email&direction=asc", limit));
+            List<String> descending = emails(allPages("sort=email&direction=desc", limit));
+
+            assertEquals(ascending.stream().sorted().toList(), ascending);
+            assertEquals(USERS.length, ascending.size());
+            List<String> reversed = new ArrayList<>(ascending);
+            Collections.reverse(reversed);
+            assertEquals(reversed, descending);
+        }
+    }
+
+    @Test
+    void roleFilterAppliesOnEveryPage() throws Exception {
+        long admins = Arrays.stream(USERS).filter(u -> u[0].equals("admin")).count();
+
+        List<JsonNode> rows = allPages("sort=full_name&direction=asc&role=admin", 1);
+
+        assertEquals(admins, rows.size());
+        assertTrue(rows.stream().allMatch(row -> row.get("roleName").asText().equals("admin")));
+        assertSameAsSinglePage(rows, "sort=full_name&direction=asc&role=admin");
+    }
+
+    // Cursor mang cột và chiều sắp xếp: dùng với sort/direction khác thì bị từ chối thay vì trả trang sai
+    @Test
+    void cursorIsRejectedForAnotherSortOrDirection() throws Exception {
+        String cursor = page("sort=email&direction=asc&limit=2").get("nextCursor").asText();
+
+        List<String> others = List.of("sort=email&direction=desc", "sort=full_name&direction=asc",
+                "sort=full_name&direction=desc");
+        for (String params : others) {
+            mockMvc.perform(get("/api/admin/users/get-all?emailPrefix=" + prefix + "&" + params + "&cursor=" + cursor)
+                            .header("Authorization", "Bearer " + adminToken))
+                    .andExpect(status().isBadRequest());
+        }
+        assertEquals(2, page("sort=email&direction=asc&limit=2&cursor=" + cursor).get("items").size());
+        mockMvc.perform(get("/api/admin/users/get-all?cursor=" + UUID.randomUUID())
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isBadRequest());
+    }
+
+    // Đi hết các trang theo nextCursor với trang cỡ limit
+    private List<JsonNode> allPages(String params, int limit) throws Exception {
+        List<JsonNode> rows = new ArrayList<>();
+        String cursor = null;
+        do {
+            JsonNode page = page(params + "&limit=" + limit + (cursor != null ? "&cursor=" + cursor : ""));
+            page.get("items").forEach(rows::add);
+            assertTrue(page.get("items").size() <= limit);
+            cursor = page.hasNonNull("nextCursor") ? page.get("nextCursor").asText() : null;
+        } while (cursor != null);
+        return rows;
+    }
+
+    private void assertSameAsSinglePage(List<JsonNode> rows, String params) throws Exception {
+        JsonNode single = page(params + "&limit=100");
+        assertFalse(single.hasNonNull("nextCursor"));
+        List<String> expected = new ArrayList<>();
+        single.get("items").forEach(row -> expected.add(row.get("id").asText()));
+        assertEquals(expected, rows.stream().map(row -> row.get("id").asText()).toList());
+    }
+
+    private JsonNode page(String params) throws Exception {
+        String body = mockMvc.perform(get("/api/admin/users/get-all?emailPrefix=" + prefix + "&" + params)
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private static List<String> fullNames(List<JsonNode> rows) {
+        return rows.stream().map(row -> row.hasNonNull("full_name") ? row.get("full_name").asText() : null).toList();
+    }
+
+    private static List<String> emails(List<JsonNode> rows) {
+        return rows.stream().map(row -> row.get("email").asText()).toList();
+    }
+}
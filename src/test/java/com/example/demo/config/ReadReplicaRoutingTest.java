@@ -0,0 +1,234 @@
+package com.example.demo.config;
+
+import com.example.demo.entity.Role;
+import com.example.demo.entity.User;
+import com.example.demo.repository.RoleRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.util.JwtUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Hai H2 in-memory đóng vai primary và replica. Replica có cùng schema nhưng dữ liệu khác (full_name)
+// để biết mỗi lần đọc đi vào database nào.
+@SpringBootTest(properties = {
+        "jwt.auth-mode=stateless",
+        "app.datasource.replica.url=jdbc:h2:mem:replica-${random.uuid};MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "app.datasource.replica.sticky-window-ms=60000",
+        "app.datasource.replica.health-check-interval-ms=3600000"
+})
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class ReadReplicaRoutingTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private HikariDataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private HikariDataSource replicaDataSource;
+
+    @Autowired
+    private ReplicaRoutingDataSource replicaRoutingDataSource;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User admin;
+    private User target;
+
+    @BeforeEach
+    void setUp() {
+        Role role = roleRepository.findByName("admin").orElseThrow();
+        admin = save(role, "Quản Trị");
+        target = save(role, "Bản Primary");
+
+        // "Replication": chép schema và dữ liệu của primary sang replica, rồi làm replica khác primary
+        JdbcTemplate primary = new JdbcTemplate(primaryDataSource);
+        JdbcTemplate replica = new JdbcTemplate(replicaDataSource);
+        List<String> script = primary.queryForList("script", String.class);
+        replica.execute("set referential_integrity false");
+        for (String statement : script) {
+            if (!statement.startsWith("CREATE USER")) {
+                replica.execute(statement);
+            }
+        }
+        replica.update("update users set full_name = 'Bản Replica' where id = ?", target.getId());
+    }
+
+    @Test
+    void readOnlyEndpointsReadFromReplica() throws Exception {
+        mockMvc.perform(get("/api/admin/users/get-by-id/" + target.getId()).header("Authorization", bearer(admin)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.full_name").value("Bản Replica"));
+        mockMvc.perform(get("/api/admin/users/get-all?emailPrefix=" + target.getEmail())
+                        .header("Authorization", bearer(admin)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].full_name").value("Bản Replica"));
+    }
+
+    @Test
+    void userWhoJustWroteReadsFromPrimary() throws Exception {
+        mockMvc.perform(put("/api/admin/users/update/" + target.getId())
+                        .header("Authorization", bearer(admin))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"" + target.getEmail() + "\",\"full_name\":\"Bản Mới\"}"))
+                .andExpect(status().isOk());
+
+        // Chưa replicate: admin vừa ghi vẫn thấy bản mới, admin khác đọc replica
+        mockMvc.perform(get("/api/admin/users/get-by-id/" + target.getId()).header("Authorization", bearer(admin)))
+                .andExpect(jsonPath("$.full_name").value("Bản Mới"));
+        User otherAdmin = save(roleRepository.findByName("admin").orElseThrow(), "Quản Trị Khác");
+        mockMvc.perform(get("/api/admin/users/get-by-id/" + target.getId()).header("Authorization", bearer(otherAdmin)))
+                .andExpect(jsonPath("$.full_name").value("Bản Replica"));
+    }
+
+    @Test
+    void rolledBackWriteDoesNotMakeUserSticky() throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(admin.getEmail(), null, List.of()));
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update("update users set full_name = 'Không Commit' where id = ?", target.getId());
+                status.setRollbackOnly();
+            });
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+
+        mockMvc.perform(get("/api/admin/users/get-by-id/" + target.getId()).header("Authorization", bearer(admin)))
+                .andExpect(jsonPath("$.full_name").value("Bản Replica"));
+    }
+
+    @Test
+    void loginChecksPasswordOnPrimary() throws Exception {
+        User user = save(roleRepository.findByName("customer").orElseThrow(), "Đổi Mật Khẩu");
+        new JdbcTemplate(primaryDataSource).update("update users set password = ? where id = ?",
+                passwordEncoder.encode("MatKhau@Moi1"), user.getId());
+        // Replica chưa nhận user mới và mật khẩu mới: vẫn giữ mật khẩu cũ
+        JdbcTemplate replica = new JdbcTemplate(replicaDataSource);
+        replica.execute("set referential_integrity false");
+        replica.update("merge into users (id, email, password, full_name, role_id, version) "
+                        + "key (id) values (?, ?, ?, ?, ?, 0)", user.getId(), user.getEmail(),
+                passwordEncoder.encode("MatKhau@Cu1"), user.getFull_name(), user.getRole().getId());
+
+        entityManagerFactory.getCache().evict(User.class, user.getId());
+
+        login(user.getEmail(), "MatKhau@Cu1").andExpect(status().isUnauthorized());
+        login(user.getEmail(), "MatKhau@Moi1").andExpect(status().isOk());
+
+        // Bản login ghi vào L2 cache là bản của primary (chế độ reload và updatePassword đọc từ cache)
+        assertTrue(entityManagerFactory.getCache().contains(User.class, user.getId()));
+        assertTrue(passwordEncoder.matches("MatKhau@Moi1", userRepository.findById(user.getId()).orElseThrow().getPassword()));
+    }
+
+    // Request anonymous không có read-your-writes: replica (không replicate trong test) chưa bao giờ thấy user mới
+    @Test
+    void anonymousAuthFlowsReadPrimary() throws Exception {
+        long replicaConnections = replicaRoutingDataSource.getReplicaConnections();
+        String email = UUID.randomUUID() + "@example.com";
+        String body = "{\"email\":\"" + email + "\",\"password\":\"MatKhau@123\","
+                + "\"full_name\":\"Người Mới\",\"phone\":\"0912345678\"}";
+        mockMvc.perform(post("/api/users/register").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk());
+
+        String refreshToken = objectMapper.readTree(login(email, "MatKhau@123")
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString()).get("refreshToken").asText();
+        mockMvc.perform(post("/api/users/refresh-token").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\":\"" + refreshToken + "\"}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/users/register").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0].field").value("email"));
+
+        // Không lần đọc nào của đăng ký/login/refresh đi replica
+        assertEquals(replicaConnections, replicaRoutingDataSource.getReplicaConnections());
+    }
+
+    @Test
+    void unavailableReplicaFallsBackToPrimary() throws Exception {
+        replicaDataSource.close();
+
+        mockMvc.perform(get("/api/admin/users/get-by-id/" + target.getId()).header("Authorization", bearer(admin)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.full_name").value("Bản Primary"));
+        assertFalse(replicaRoutingDataSource.isReplicaHealthy());
+
+        replicaRoutingDataSource.checkReplicaHealth();
+        assertFalse(replicaRoutingDataSource.isReplicaHealthy());
+    }
+
+    private User save(Role role, String fullName) {
+        User user = new User();
+        user.setId(UUID.randomUUID());
+        user.setEmail(UUID.randomUUID() + "@example.com");
+        user.setPassword("$2a$10$hash");
+        user.setFull_name(fullName);
+        user.setRole(role);
+        return userRepository.save(user);
+    }
+
+    private ResultActions login(String email, String password) throws Exception {
+        return mockMvc.perform(post("/api/users/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"" + email + "\",\"password\":\"" + password + "\"}"));
+    }
+
+    private String bearer(User user) {
+        return "Bearer " + jwtUtil.generateAccessToken(user);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.demo.security;
+
+import com.example.demo.entity.User;
+import com.example.demo.repository.RoleRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.support.SqlStatementCounter;
+import com.example.demo.support.TestUsers;
+import com.example.demo.util.JwtUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "jwt.auth-mode=stateless")
+@AutoConfigureMockMvc
+class JwtAuthenticationFilterQueryCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Test
+    void statelessModeRunsNoSqlPerAuthenticatedRequest() throws Exception {
+        String token = jwtUtil.generateAccessToken(saveUser("customer"));
+
+        SqlStatementCounter.reset();
+        mockMvc.perform(get("/api/customer/test").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        assertEquals(0, SqlStatementCounter.count(), () -> "SQL đã chạy: " + SqlStatementCounter.statements());
+    }
+
+    @Test
+    void statelessModeTakesAuthoritiesFromToken() throws Exception {
+        String customerToken = jwtUtil.generateAccessToken(saveUser("customer"));
+        String adminToken = jwtUtil.generateAccessToken(saveUser("admin"));
+
+        mockMvc.perform(get("/api/admin/users/get-by-id/" + UUID.randomUUID())
+                        .header("Authorization", "Bearer " + customerToken))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/admin/users/get-by-id/" + UUID.randomUUID())
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void tamperedTokenIsNotAuthenticated() throws Exception {
+        String token = jwtUtil.generateAccessToken(saveUser("customer"));
+
+        mockMvc.perform(get("/api/customer/test").header("Authorization", "Bearer " + token + "x"))
+                .andExpect(status().isForbidden());
+    }
+
+    private User saveUser(String roleName) {
+        return TestUsers.save(roleRepository, userRepository, roleName, "x", "Nguyen Van A");
+    }
+}
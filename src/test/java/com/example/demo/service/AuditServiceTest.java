@@ -0,0 +1,207 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.AuditLog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+
+// AuditService với JdbcTemplate giả: writer có thể bị giữ lại để làm đầy buffer
+class AuditServiceTest {
+
+    private static final String POISON = "poison";
+
+    private final List<UUID> written = Collections.synchronizedList(new ArrayList<>());
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    // Writer chờ latch này trước khi ghi lô kế tiếp
+    private volatile CountDownLatch writerGate = new CountDownLatch(0);
+    private final CountDownLatch writerStarted = new CountDownLatch(1);
+    // Số lượt ghi kế tiếp sẽ lỗi như khi database không tới được
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+    private AuditService auditService;
+
+    @BeforeEach
+    void setUp() {
+        JdbcTemplate jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        Mockito.when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            writerStarted.countDown();
+            writerGate.await(10, TimeUnit.SECONDS);
+            if (failuresLeft.getAndDecrement() > 0) {
+                throw new CannotGetJdbcConnectionException("database down");
+            }
+            List<Object[]> rows = invocation.getArgument(1);
+            // Một dòng vi phạm ràng buộc làm cả lô lỗi
+            if (rows.stream().anyMatch(row -> POISON.equals(row[6]))) {
+                throw new DataIntegrityViolationException("value too long");
+            }
+            rows.forEach(row -> written.add((UUID) row[4]));
+            return new int[rows.size()];
+        });
+        Mockito.when(jdbcTemplate.update(anyString(), any(Object[].class))).thenAnswer(invocation -> {
+            Object[] row = (Object[]) invocation.getRawArguments()[1];
+            if (POISON.equals(row[6])) {
+                throw new DataIntegrityViolationException("value too long");
+            }
+            written.add((UUID) row[4]);
+            return 1;
+        });
+        TransactionTemplate transactionTemplate = Mockito.mock(TransactionTemplate.class);
+        Mockito.doAnswer(invocation -> {
+            Consumer<TransactionStatus> action = invocation.getArgument(0);
+            action.accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        auditService = new AuditService();
+        ReflectionTestUtils.setField(auditService, "enabled", true);
+        ReflectionTestUtils.setField(auditService, "bufferCapacity", 4);
+        ReflectionTestUtils.setField(auditService, "batchSize", 2);
+        ReflectionTestUtils.setField(auditService, "flushIntervalMs", 10_000L);
+        ReflectionTestUtils.setField(auditService, "overflowPolicy", AuditService.OverflowPolicy.DROP);
+        ReflectionTestUtils.setField(auditService, "blockTimeoutMs", 50L);
+        ReflectionTestUtils.setField(auditService, "retryInitialBackoffMs", 10L);
+        ReflectionTestUtils.setField(auditService, "retryMaxBackoffMs", 40L);
+        ReflectionTestUtils.setField(auditService, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(auditService, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(auditService, "meterRegistry", meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        writerGate.countDown();
+        auditService.shutdown();
+    }
+
+    @Test
+    void dropPolicyDropsWhenBufferIsFull() throws Exception {
+        auditService.init();
+        fillWhileWriterIsBusy();
+
+        auditService.record(AuditLog.Action.LOGIN, "a", UUID.randomUUID(), null, null);
+
+        assertEquals(1, counter("dropped"));
+        writerGate.countDown();
+        auditService.flush();
+        assertEquals(6, written.size());
+    }
+
+    @Test
+    void blockPolicyWaitsForWriter() throws Exception {
+        ReflectionTestUtils.setField(auditService, "overflowPolicy", AuditService.OverflowPolicy.BLOCK);
+        ReflectionTestUtils.setField(auditService, "blockTimeoutMs", 5_000L);
+        auditService.init();
+        fillWhileWriterIsBusy();
+
+        UUID last = UUID.randomUUID();
+        CompletableFuture<Void> blocked = CompletableFuture.runAsync(
+                () -> auditService.record(AuditLog.Action.LOGIN, "a", last, null, null));
+        Thread.sleep(100);
+        assertFalse(blocked.isDone());
+        writerGate.countDown();
+        blocked.get(5, TimeUnit.SECONDS);
+
+        auditService.flush();
+        assertEquals(0, counter("dropped"));
+        assertTrue(written.contains(last));
+    }
+
+    @Test
+    void recordAllNeverDropsEvenWithDropPolicy() throws Exception {
+        auditService.init();
+        List<UUID> ids = IntStream.range(0, 100).mapToObj(i -> UUID.randomUUID()).toList();
+
+        auditService.recordAll(AuditLog.Action.USER_CREATED, ids, "127.0.0.1", "import");
+        auditService.flush();
+
+        assertEquals(0, counter("dropped"));
+        assertEquals(ids, written);
+    }
+
+    @Test
+    void shutdownDrainsPendingEvents() throws Exception {
+        auditService.init();
+        fillWhileWriterIsBusy();
+        writerGate.countDown();
+
+        auditService.shutdown();
+
+        assertEquals(6, written.size());
+        assertEquals(6, counter("written"));
+    }
+
+    @Test
+    void failedBatchIsRetriedUntilWritten() throws Exception {
+        auditService.init();
+        failuresLeft.set(3);
+        List<UUID> ids = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+
+        ids.forEach(id -> auditService.record(AuditLog.Action.LOGIN, "a", id, null, null));
+        auditService.flush();
+
+        assertEquals(ids, written);
+        assertEquals(3, meterRegistry.get("audit.write.failures").counter().count());
+        assertEquals(3, counter("written"));
+        assertEquals(0, counter("dropped"));
+        assertEquals(0, counter("lost"));
+    }
+
+    @Test
+    void constraintViolationRejectsOnlyTheOffendingEvent() throws Exception {
+        auditService.init();
+        UUID good = UUID.randomUUID();
+
+        auditService.record(AuditLog.Action.LOGIN, "a", UUID.randomUUID(), null, POISON);
+        auditService.record(AuditLog.Action.LOGIN, "a", good, null, null);
+        auditService.flush();
+
+        assertEquals(List.of(good), written);
+        assertEquals(1, counter("rejected"));
+        assertEquals(1, counter("written"));
+    }
+
+    // Writer giữ 2 sự kiện đầu (một lô) và bị chặn, thêm 4 sự kiện làm đầy buffer
+    private void fillWhileWriterIsBusy() throws InterruptedException {
+        writerGate = new CountDownLatch(1);
+        // Chờ writer vào trạng thái park với buffer rỗng, để nó lấy trọn lô 2 sự kiện đầu
+        Thread writer = (Thread) ReflectionTestUtils.getField(auditService, "writer");
+        while (writer.getState() != Thread.State.TIMED_WAITING) {
+            Thread.sleep(1);
+        }
+        auditService.record(AuditLog.Action.LOGIN, "a", UUID.randomUUID(), null, null);
+        auditService.record(AuditLog.Action.LOGIN, "a", UUID.randomUUID(), null, null);
+        assertTrue(writerStarted.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 4; i++) {
+            auditService.record(AuditLog.Action.LOGIN, "a", UUID.randomUUID(), null, null);
+        }
+        assertEquals(0, counter("dropped"));
+    }
+
+    private double counter(String result) {
+        return meterRegistry.get("audit.events").tag("result", result).counter().count();
+    }
+}
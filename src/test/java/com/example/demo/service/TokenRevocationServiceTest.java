@@ -0,0 +1,111 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.User;
+import com.example.demo.repository.RoleRepository;
+import com.example.demo.repository.TokenRevocationRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.support.TestUsers;
+import com.example.demo.util.JwtUtil;
+import com.example.demo.util.VerifiedToken;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Thu hồi token: token cấp trước mốc bị chặn, token cấp ngay sau (cùng giây) vẫn dùng được, mốc của node khác đến qua sync
+@SpringBootTest(properties = {"jwt.auth-mode=stateless", "token-revocation.sync-interval-ms=3600000"})
+@AutoConfigureMockMvc
+class TokenRevocationServiceTest {
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private TokenRevocationRepository tokenRevocationRepository;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = TestUsers.save(roleRepository, userRepository, "customer", "x", "Phạm Thị Dung");
+    }
+
+    @Test
+    void tokenIssuedBeforeRevokeIsRejected() throws Exception {
+        String token = jwtUtil.generateAccessToken(user);
+        Thread.sleep(2);
+        tokenRevocationService.revoke(user.getId());
+
+        assertTrue(tokenRevocationService.isRevoked(user.getId(), jwtUtil.verify(token).getIssuedAt()));
+        mockMvc.perform(get("/api/users/get-by-email/" + user.getEmail()).header("Authorization", "Bearer " + token))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void tokenIssuedRightAfterRevokeIsAccepted() throws Exception {
+        // logout rồi login lại trong cùng một giây
+        tokenRevocationService.revoke(user.getId());
+        String token = jwtUtil.generateAccessToken(user);
+
+        VerifiedToken verified = jwtUtil.verify(token);
+        assertFalse(tokenRevocationService.isRevoked(user.getId(), verified.getIssuedAt()));
+        mockMvc.perform(get("/api/users/get-by-email/" + user.getEmail()).header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void syncPicksUpRevocationsFromOtherNodes() throws Exception {
+        Instant issuedAt = Instant.now();
+        Thread.sleep(2);
+        // Node khác ghi mốc thẳng vào database
+        tokenRevocationRepository.insert(user.getId(), Instant.now());
+        assertFalse(tokenRevocationService.isRevoked(user.getId(), issuedAt));
+
+        tokenRevocationService.sync();
+
+        assertTrue(tokenRevocationService.isRevoked(user.getId(), issuedAt));
+        assertFalse(tokenRevocationService.isRevoked(user.getId(), Instant.now().plusMillis(1)));
+    }
+
+    @Test
+    void syncEvictsUserChangedOnOtherNode() throws Exception {
+        assertEquals("x", userRepository.findByNaturalEmail(user.getEmail()).orElseThrow().getPassword());
+        // Node khác đổi mật khẩu: cache của node này không biết
+        jdbcTemplate.update("update users set password = 'y' where id = ?", user.getId());
+        assertEquals("x", userRepository.findByNaturalEmail(user.getEmail()).orElseThrow().getPassword());
+        // Kiểm tra mật khẩu khi login không dùng cache
+        assertEquals("y", userRepository.findByEmailFromDatabase(user.getEmail()).orElseThrow().getPassword());
+
+        jdbcTemplate.update("update users set password = 'z' where id = ?", user.getId());
+        tokenRevocationRepository.insert(user.getId(), Instant.now());
+        tokenRevocationService.sync();
+
+        assertEquals("z", userRepository.findByNaturalEmail(user.getEmail()).orElseThrow().getPassword());
+    }
+}
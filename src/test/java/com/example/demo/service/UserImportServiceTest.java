@@ -0,0 +1,91 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ImportReportDTO;
+import com.example.demo.dto.ImportRowError;
+import com.example.demo.dto.UserChangeEvent;
+import com.example.demo.dto.UserDTO;
+import com.example.demo.dto.UsersImportedEvent;
+import com.example.demo.entity.Role;
+import com.example.demo.entity.User;
+import com.example.demo.repository.RoleRepository;
+import com.example.demo.security.RoleRegistry;
+import com.example.demo.support.TestUsers;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Lô insert lỗi thì ghi lại từng dòng: mỗi dòng lỗi báo đúng ràng buộc bị vi phạm, dòng ghi được vào chỉ mục tìm kiếm
+// và dashboard nhận một UsersImportedEvent cho cả lô
+@SpringBootTest(properties = {"jwt.auth-mode=stateless", "user-search.resync-interval-ms=3600000"})
+@RecordApplicationEvents
+class UserImportServiceTest {
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private RoleRegistry roleRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserSearchService userSearchService;
+
+    @Autowired
+    private ApplicationEvents events;
+
+    @Test
+    void rowFallbackReportsTheViolatedConstraint() throws Exception {
+        // Email ghi thẳng vào database nên Bloom filter không biết, lô insert mới phát hiện
+        String takenEmail = UUID.randomUUID() + "@example.com";
+        User existing = TestUsers.user(TestUsers.role(roleRepository, "customer"), "x", "Đã Có");
+        jdbcTemplate.update("insert into users (id, email, password, full_name, role_id, version) values (?, ?, ?, ?, ?, 0)",
+                existing.getId(), takenEmail, "x", existing.getFull_name(), existing.getRole().getId());
+        // Role còn trong RoleRegistry nhưng đã bị xóa khỏi database
+        Role removed = TestUsers.role(roleRepository, "import-removed-" + UUID.randomUUID());
+        roleRegistry.refresh();
+        jdbcTemplate.update("delete from roles where id = ?", removed.getId());
+        String okEmail = UUID.randomUUID() + "@example.com";
+
+        String csv = String.join("\n",
+                "email,password,full_name,phone,role_id",
+                okEmail + ",secret,Nhập Được,0912345678,",
+                takenEmail + ",secret,Trùng Email,0912345678,",
+                UUID.randomUUID() + "@example.com,secret,Mất Role,0912345678," + removed.getId(),
+                UUID.randomUUID() + "@example.com,secret," + "Dài".repeat(100) + ",0912345678,");
+        ImportReportDTO report = userImportService.importUsers(new StringReader(csv), UserImportService.Format.CSV, null);
+
+        assertEquals(1, report.getImported());
+        assertEquals(3, report.getFailed());
+        Map<Long, String> fields = report.getErrors().stream()
+                .collect(Collectors.toMap(ImportRowError::getLine, ImportRowError::getField));
+        assertEquals(Map.of(3L, "email", 4L, "role_id", 5L, "full_name"), fields);
+
+        // Một tin cho cả lô, không phát UserChangeEvent từng dòng
+        assertEquals(0, events.stream(UserChangeEvent.class).count());
+        List<UsersImportedEvent> imported = events.stream(UsersImportedEvent.class).toList();
+        assertEquals(1, imported.size());
+        assertEquals(1, imported.get(0).getCount());
+
+        // Chỉ mục tìm kiếm nhận dòng ghi được qua lượt ghi theo lô
+        userSearchService.flush();
+        List<UserDTO> found = userSearchService.search(okEmail, 10);
+        assertEquals(1, found.size());
+        assertEquals(okEmail, found.get(0).getEmail());
+    }
+}
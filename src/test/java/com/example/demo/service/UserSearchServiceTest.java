@@ -0,0 +1,63 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.UserDTO;
+import com.example.demo.entity.User;
+import com.example.demo.repository.RoleRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.support.TestUsers;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Thay đổi không đi qua UserChangeEvent của node này (node khác ghi, hoặc ghi thẳng vào database)
+// được chỉ mục bắt kịp ở lần đồng bộ định kỳ
+@SpringBootTest(properties = {"jwt.auth-mode=stateless", "user-search.resync-interval-ms=3600000"})
+class UserSearchServiceTest {
+
+    @Autowired
+    private UserSearchService userSearchService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void resyncPicksUpChangesMadeElsewhere() {
+        User renamed = TestUsers.save(roleRepository, userRepository, "customer", "x", "Hồ Văn Nam");
+        User deleted = TestUsers.save(roleRepository, userRepository, "customer", "x", "Hồ Văn Bắc");
+        userSearchService.resync();
+        userSearchService.flush();
+        assertEquals(1, search("ho van nam").size());
+        assertEquals(1, search("ho van bac").size());
+
+        jdbcTemplate.update("update users set full_name = 'Hồ Văn Tây', version = version + 1 where id = ?", renamed.getId());
+        jdbcTemplate.update("delete from users where id = ?", deleted.getId());
+        User inserted = TestUsers.user(TestUsers.role(roleRepository, "customer"), "x", "Hồ Văn Đông");
+        jdbcTemplate.update("insert into users (id, email, password, full_name, role_id, version) values (?, ?, ?, ?, ?, 0)",
+                inserted.getId(), inserted.getEmail(), "x", inserted.getFull_name(), inserted.getRole().getId());
+        assertEquals(1, search("ho van nam").size());
+
+        userSearchService.resync();
+        userSearchService.flush();
+
+        assertTrue(search("ho van nam").isEmpty());
+        assertTrue(search("ho van bac").isEmpty());
+        assertEquals(renamed.getId(), search("ho van tay").get(0).getId());
+        assertEquals(inserted.getId(), search("ho van dong").get(0).getId());
+    }
+
+    private List<UserDTO> search(String query) {
+        return userSearchService.search(query, 10);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.demo.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Ghi lại mọi câu SQL Hibernate chuẩn bị, để test đếm số truy vấn của một request
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final List<String> STATEMENTS = new ArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        synchronized (STATEMENTS) {
+            STATEMENTS.add(sql);
+        }
+        return sql;
+    }
+
+    public static void reset() {
+        synchronized (STATEMENTS) {
+            STATEMENTS.clear();
+        }
+    }
+
+    public static List<String> statements() {
+        synchronized (STATEMENTS) {
+            return new ArrayList<>(STATEMENTS);
+        }
+    }
+
+    public static int count() {
+        synchronized (STATEMENTS) {
+            return STATEMENTS.size();
+        }
+    }
+
+    // Số cột trong select list cấp ngoài cùng của một câu SELECT, 0 nếu không phải SELECT
+    public static int selectedColumns(String sql) {
+        String lower = sql.toLowerCase(Locale.ROOT);
+        int start = lower.indexOf("select ");
+        if (start < 0) {
+            return 0;
+        }
+        int depth = 0;
+        int columns = 1;
+        for (int i = start + "select ".length(); i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (depth == 0 && c == ',') {
+                columns++;
+            } else if (depth == 0 && lower.startsWith(" from ", i)) {
+                break;
+            }
+        }
+        return columns;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.demo.support;
+
+import com.example.demo.entity.Role;
+import com.example.demo.entity.User;
+import com.example.demo.repository.RoleRepository;
+import com.example.demo.repository.UserRepository;
+
+import java.util.UUID;
+
+// Role và user mẫu cho test tích hợp (và load test): role được tạo nếu database chưa có
+public final class TestUsers {
+
+    private TestUsers() {
+    }
+
+    public static Role role(RoleRepository roleRepository, String name) {
+        return roleRepository.findByName(name).orElseGet(() -> {
+            Role role = new Role();
+            role.setId(UUID.randomUUID());
+            role.setName(name);
+            return roleRepository.save(role);
+        });
+    }
+
+    // User với email ngẫu nhiên, passwordHash đã mã hóa sẵn (hoặc giá trị bất kỳ nếu test không login)
+    public static User user(Role role, String passwordHash, String fullName) {
+        User user = new User();
+        user.setId(UUID.randomUUID());
+        user.setEmail(UUID.randomUUID() + "@example.com");
+        user.setPassword(passwordHash);
+        user.setFull_name(fullName);
+        user.setRole(role);
+        return user;
+    }
+
+    public static User save(RoleRepository roleRepository, UserRepository userRepository, String roleName,
+                            String passwordHash, String fullName) {
+        return userRepository.save(user(role(roleRepository, roleName), passwordHash, fullName));
+    }
+}
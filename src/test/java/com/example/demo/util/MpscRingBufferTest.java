@@ -0,0 +1,91 @@
+package com.example.demo.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MpscRingBufferTest {
+
+    @Test
+    void capacityRoundsUpToPowerOfTwo() {
+        assertEquals(2, new MpscRingBuffer<>(1).capacity());
+        assertEquals(8, new MpscRingBuffer<>(5).capacity());
+        assertEquals(8, new MpscRingBuffer<>(8).capacity());
+    }
+
+    @Test
+    void rejectsWhenFullAndAcceptsAgainAfterDrain() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(4));
+        assertEquals(4, buffer.size());
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(2, buffer.drain(drained::add, 2));
+        assertEquals(List.of(0, 1), drained);
+        assertTrue(buffer.offer(4));
+        assertTrue(buffer.offer(5));
+        assertFalse(buffer.offer(6));
+
+        assertEquals(4, buffer.drain(drained::add, 10));
+        assertEquals(List.of(0, 1, 2, 3, 4, 5), drained);
+        assertEquals(0, buffer.size());
+        assertEquals(0, buffer.drain(drained::add, 10));
+    }
+
+    // Nhiều producer cùng lúc, một consumer: không mất, không lặp, thứ tự của từng producer được giữ
+    @Test
+    void concurrentProducersLoseNothing() throws Exception {
+        int producers = 4;
+        int perProducer = 50_000;
+        MpscRingBuffer<long[]> buffer = new MpscRingBuffer<>(1024);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int p = 0; p < producers; p++) {
+            long producer = p;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (long i = 0; i < perProducer; i++) {
+                    long[] element = {producer, i};
+                    while (!buffer.offer(element)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            });
+        }
+        start.countDown();
+
+        long[] next = new long[producers];
+        long total = 0;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (total < (long) producers * perProducer && System.nanoTime() < deadline) {
+            total += buffer.drain(element -> {
+                assertEquals(next[(int) element[0]], element[1]);
+                next[(int) element[0]]++;
+            }, 256);
+        }
+        executor.shutdown();
+
+        assertEquals((long) producers * perProducer, total);
+        for (long count : next) {
+            assertEquals(perProducer, count);
+        }
+        assertEquals(0, buffer.size());
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.demo.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Đồng hồ giả (nano giây) thay cho System.nanoTime
+class TokenBucketLimiterTest {
+
+    private static final long REFILL = TimeUnit.SECONDS.toNanos(2);
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+
+    private TokenBucketLimiter limiter(long capacity, long maxKeys) {
+        return new TokenBucketLimiter(capacity, Duration.ofNanos(REFILL), maxKeys, now::get);
+    }
+
+    @Test
+    void allowsBurstUpToCapacityThenReportsWait() {
+        TokenBucketLimiter limiter = limiter(3, 100);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("ip"));
+        }
+        assertEquals(0, limiter.available("ip"));
+        assertEquals(REFILL, limiter.tryAcquire("ip"));
+        // Bị từ chối không tiêu token
+        assertEquals(REFILL, limiter.tryAcquire("ip"));
+        // Key khác có bucket riêng
+        assertEquals(0, limiter.tryAcquire("other"));
+    }
+
+    @Test
+    void refillsOneTokenPerPeriodUpToCapacity() {
+        TokenBucketLimiter limiter = limiter(3, 100);
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("ip");
+        }
+        now.addAndGet(REFILL / 2);
+        assertEquals(REFILL / 2, limiter.tryAcquire("ip"));
+        now.addAndGet(REFILL / 2);
+        assertEquals(1, limiter.available("ip"));
+        assertEquals(0, limiter.tryAcquire("ip"));
+        assertEquals(REFILL, limiter.tryAcquire("ip"));
+
+        // Nghỉ lâu không tích quá capacity
+        now.addAndGet(REFILL * 10);
+        assertEquals(3, limiter.available("ip"));
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("ip"));
+        }
+        assertTrue(limiter.tryAcquire("ip") > 0);
+    }
+
+    @Test
+    void retryAfterRoundsUpToWholeSeconds() {
+        assertEquals(1, TokenBucketLimiter.retryAfterSeconds(1));
+        assertEquals(1, TokenBucketLimiter.retryAfterSeconds(TimeUnit.MILLISECONDS.toNanos(999)));
+        assertEquals(1, TokenBucketLimiter.retryAfterSeconds(TimeUnit.SECONDS.toNanos(1)));
+        assertEquals(2, TokenBucketLimiter.retryAfterSeconds(TimeUnit.SECONDS.toNanos(1) + 1));
+        assertEquals(12, TokenBucketLimiter.retryAfterSeconds(TimeUnit.MILLISECONDS.toNanos(11_001)));
+    }
+
+    @Test
+    void concurrentAcquiresNeverExceedCapacity() throws Exception {
+        TokenBucketLimiter limiter = limiter(1000, 100);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                int granted = 0;
+                for (int i = 0; i < 500; i++) {
+                    if (limiter.tryAcquire("ip") == 0) {
+                        granted++;
+                    }
+                }
+                return granted;
+            }));
+        }
+        start.countDown();
+        int granted = 0;
+        for (Future<Integer> result : results) {
+            granted += result.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(1000, granted);
+        assertEquals(0, limiter.available("ip"));
+    }
+
+    @Test
+    void evictsIdleAndExcessKeys() {
+        TokenBucketLimiter limiter = limiter(3, 10);
+        limiter.tryAcquire("idle");
+        assertEquals(1, limiter.trackedKeys());
+        // Sau capacity * refill bucket đã đầy lại, bỏ đi không đổi hành vi
+        now.addAndGet(REFILL * 3 + 1);
+        assertEquals(0, limiter.trackedKeys());
+        assertEquals(3, limiter.available("idle"));
+
+        for (int i = 0; i < 50; i++) {
+            limiter.tryAcquire("ip-" + i);
+        }
+        assertTrue(limiter.trackedKeys() <= 10);
+    }
+
+    @Test
+    void rejectsInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucketLimiter(0, Duration.ofSeconds(1), 10));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucketLimiter(1, Duration.ZERO, 10));
+    }
+}
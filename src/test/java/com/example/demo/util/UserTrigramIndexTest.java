@@ -0,0 +1,139 @@
+package com.example.demo.util;
+
+import com.example.demo.dto.UserDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserTrigramIndexTest {
+
+    private final UserTrigramIndex index = new UserTrigramIndex();
+
+    @Test
+    void matchesWithoutDiacriticsAndRanksExactBeforePrefixBeforeSubstring() {
+        UserDTO substring = user("Lê Văn Thanh", 0L);
+        UserDTO prefix = user("Hàn Mặc Tử", 0L);
+        UserDTO exact = user("Hân", 0L);
+        index.upsert(substring);
+        index.upsert(prefix);
+        index.upsert(exact);
+
+        assertEquals(List.of(exact, prefix, substring), index.search("HAN", 10, 1000));
+        assertEquals(List.of(prefix), index.search("han mac", 10, 1000));
+        // 1-2 ký tự chỉ khớp đầu từ
+        assertEquals(List.of(prefix, exact), index.search("ha", 10, 1000));
+        assertEquals(List.of(), index.search("tran", 10, 1000));
+    }
+
+    // Cùng điểm: user vào chỉ mục trước đứng trước, kể cả khi user đó vừa được cập nhật
+    @Test
+    void updateKeepsTieOrder() {
+        UserDTO older = user("Trần Văn Bình", 0L);
+        UserDTO newer = user("Trần Văn Bình", 0L);
+        index.upsert(older);
+        index.upsert(newer);
+
+        UserDTO renamed = copy(older, "Trần Văn Bình", "0901234567", 1L);
+        index.upsert(renamed);
+        assertEquals(List.of(renamed, newer), index.search("tran van binh", 10, 1000));
+        // Đủ limit kết quả khớp nguyên trường vẫn phải thấy user cũ hơn nằm ở doc sau
+        assertEquals(List.of(renamed), index.search("tran van binh", 1, 1000));
+        assertEquals(List.of(renamed), index.search("0901234567", 10, 1000));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void removedAndRenamedUsersAreNotFoundByOldText() {
+        UserDTO user = user("Lê Thị Cúc", 0L);
+        UserDTO other = user("Lê Thị Cúc", 0L);
+        index.upsert(user);
+        index.upsert(other);
+
+        index.upsert(copy(user, "Phạm Văn Dũng", null, 1L));
+        index.remove(other.getId());
+
+        assertEquals(List.of(), index.search("le thi cuc", 10, 1000));
+        assertEquals(1, index.search("pham van dung", 10, 1000).size());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void syncReportsChangedVersionsAndRemovesUntouchedUsers() {
+        UserDTO kept = user("Đỗ Minh Hải", 3L);
+        UserDTO changed = user("Đỗ Minh Khoa", 3L);
+        UserDTO deleted = user("Đỗ Minh Long", 3L);
+        index.upsert(kept);
+        index.upsert(changed);
+        index.upsert(deleted);
+
+        index.beginSync();
+        assertTrue(index.touch(kept.getId(), 3L));
+        assertFalse(index.touch(changed.getId(), 4L));
+        assertFalse(index.touch(UUID.randomUUID(), 0L));
+        index.upsert(copy(changed, "Đỗ Minh Khang", null, 4L));
+
+        assertEquals(1, index.removeUntouched());
+        assertEquals(2, index.size());
+        assertEquals(List.of(), index.search("do minh long", 10, 1000));
+        assertEquals(1, index.search("do minh khang", 10, 1000).size());
+    }
+
+    // Dồn chỉ mục khi doc chết quá nhiều: kết quả và thứ tự không đổi
+    @Test
+    void compactionKeepsResultsAndOrder() {
+        UserDTO first = user("Vũ Thị Mai", 0L);
+        index.upsert(first);
+        for (int i = 0; i < 5_000; i++) {
+            index.upsert(user("Người Dùng " + i, 0L));
+        }
+        UserDTO last = user("Vũ Thị Mai", 0L);
+        index.upsert(last);
+        for (long version = 1; version <= 20_000; version++) {
+            index.upsert(copy(first, "Vũ Thị Mai", version % 2 == 0 ? "0911111111" : "0922222222", version));
+        }
+
+        List<UserDTO> found = index.search("vu thi mai", 10, 1000);
+        assertEquals(2, found.size());
+        assertEquals(first.getId(), found.get(0).getId());
+        assertEquals(last.getId(), found.get(1).getId());
+        assertEquals(5_002, index.size());
+    }
+
+    // Ứng viên khớp chuỗi con nằm trước vượt quá maxCandidates vẫn không che khớp nguyên trường / đầu từ ở doc sau
+    @Test
+    void exactAndPrefixMatchesPastCandidateCapAreFound() {
+        for (int i = 0; i < 50; i++) {
+            index.upsert(user("Lê Văn Thanh " + i, 0L));
+        }
+        UserDTO prefix = user("Hàn Mặc Tử", 0L);
+        UserDTO exact = user("Hân", 0L);
+        index.upsert(prefix);
+        index.upsert(exact);
+
+        assertEquals(List.of(exact, prefix), index.search("han", 2, 10));
+        assertEquals(List.of(exact), index.search("han", 1, 10));
+        // Phần chỉ khớp chuỗi con vẫn bị chặn bởi maxCandidates
+        assertEquals(12, index.search("han", 100, 10).size());
+        // Truy vấn ngắn: khớp nguyên trường đứng sau nhiều khớp đầu từ
+        for (int i = 0; i < 50; i++) {
+            index.upsert(user("An Nhiên " + i, 0L));
+        }
+        UserDTO exactShort = user("An", 0L);
+        index.upsert(exactShort);
+        assertEquals(List.of(exactShort), index.search("an", 1, 10));
+    }
+
+    private static UserDTO user(String fullName, Long version) {
+        UUID id = UUID.randomUUID();
+        return new UserDTO(id, id + "@example.com", fullName, null, null, "customer", version);
+    }
+
+    private static UserDTO copy(UserDTO user, String fullName, String phone, Long version) {
+        return new UserDTO(user.getId(), user.getEmail(), fullName, phone, null, "customer", version);
+    }
+}
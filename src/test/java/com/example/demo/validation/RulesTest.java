@@ -0,0 +1,91 @@
+package com.example.demo.validation;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Scanner của Rules phải cho cùng kết quả với regex cũ của UserValidator (trước khi bỏ Pattern) trên các ca biên.
+// Khác biệt có chủ ý duy nhất: tên chứa emoji nhận NAME_EMOJI thay vì NAME_INVALID
+class RulesTest {
+
+    private static final Pattern PHONE_PATTERN = Pattern.compile("^(?:\\+84|0)\\d{9,10}$");
+    private static final Pattern FULL_NAME_PATTERN = Pattern.compile("^[A-Za-zÀ-ỹ0-9]+( [A-Za-zÀ-ỹ0-9]+)*$");
+    private static final Pattern EMAIL_PATTERN = Pattern.compile("^[\\w-\\.]+@([\\w-]+\\.)+[\\w-]{2,4}$");
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "", "a@b.co", "a@b.c", "a@.com", "a@b..com", "a@b.com.", "a.@b.com", ".a@b.com", "a..b@c.com",
+            "a@b.c.com", "a@b.abcd", "a@b.abcde", "@b.com", "a@@b.com", "a@b", "a@bcom", "a b@c.com", "a@b.com ",
+            "a\t@b.com", "a@b.com\t", "a@b_c.com", "a-b@c-d.e-f", "a@-.co", "Ä@b.com", "a@b.cö", "a+b@c.com",
+            "ten.nguoi_dung-1@mien.con.vn"})
+    void emailMatchesLegacyRegex(String value) {
+        assertEquals(legacyEmail(value), Rules.EMAIL.check(value), value);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "", "An", "Nguyễn Văn An", "An  Bình", " An", "An ", "An\t", "\tAn", "An\tBình", "An.", "An Bình.",
+            "Ỹ", "ỹ", "Ỻ", "×", "À", "¿", "An ★", "An ©", "An ™", "An ♥", "𝔸n", "An-Bình", "O'Neil", "Bình 2",
+            "An😀", "😀", "An 🚀", "🇻🇳 An", "An 🌟 Bình"})
+    void fullNameMatchesLegacyRegex(String value) {
+        String legacy = legacyFullName(value);
+        String expected = Rules.NAME_INVALID.equals(legacy) && containsEmoji(value) ? Rules.NAME_EMOJI : legacy;
+        assertEquals(expected, Rules.FULL_NAME.check(value), value);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "", "0912345678", "09123456789", "091234567", "091234567890", "+84912345678", "+849123456789",
+            "+8491234567", "+84912345678901", "+840912345678", "84912345678", "+84 912345678", "0912 345678",
+            "091234567８", "0912345678\t", "+84", "0", "+85912345678", "0912-345-678"})
+    void phoneMatchesLegacyRegex(String value) {
+        assertEquals(legacyPhone(value), Rules.PHONE.check(value), value);
+    }
+
+    private static String legacyEmail(String email) {
+        if (email.isEmpty()) {
+            return Rules.EMAIL_REQUIRED;
+        } else if (email.contains(" ")) {
+            return Rules.EMAIL_WHITESPACE;
+        } else if (!EMAIL_PATTERN.matcher(email).matches()) {
+            return Rules.EMAIL_INVALID;
+        }
+        return null;
+    }
+
+    private static String legacyFullName(String fullName) {
+        if (fullName.isEmpty()) {
+            return Rules.NAME_REQUIRED;
+        } else if (!fullName.trim().equals(fullName)) {
+            return Rules.NAME_UNTRIMMED;
+        } else if (!FULL_NAME_PATTERN.matcher(fullName).matches()) {
+            return Rules.NAME_INVALID;
+        } else if (containsEmoji(fullName)) {
+            return Rules.NAME_EMOJI;
+        }
+        return null;
+    }
+
+    private static String legacyPhone(String phone) {
+        if (phone.isEmpty()) {
+            return Rules.PHONE_REQUIRED;
+        } else if (!PHONE_PATTERN.matcher(phone).matches()) {
+            return Rules.PHONE_INVALID;
+        }
+        return null;
+    }
+
+    private static boolean containsEmoji(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            int codePoint = text.codePointAt(i);
+            if ((codePoint >= 0x1F600 && codePoint <= 0x1F64F) || (codePoint >= 0x1F300 && codePoint <= 0x1F5FF)
+                    || (codePoint >= 0x1F680 && codePoint <= 0x1F6FF) || (codePoint >= 0x1F1E6 && codePoint <= 0x1F1FF)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}